@@ -9,6 +9,7 @@ open module ultimategdbot {
 
     requires botrino.api;
     requires botrino.command;
+    requires io.netty.codec.http;
     requires java.desktop;
     requires java.sql;
     requires jdash.events;
@@ -20,5 +21,7 @@ open module ultimategdbot {
     requires org.immutables.criteria.reactor;
     requires org.mongodb.bson;
     requires org.mongodb.driver.core;
+    requires reactor.netty.core;
+    requires reactor.netty.http;
     requires static org.immutables.value;
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package ultimategdbot.command;
+
+import botrino.api.i18n.Translator;
+import botrino.command.Command;
+import botrino.command.CommandContext;
+import botrino.command.annotation.Alias;
+import botrino.command.annotation.TopLevelCommand;
+import botrino.command.cooldown.Cooldown;
+import botrino.command.doc.CommandDocumentation;
+import botrino.command.grammar.ArgumentMapper;
+import botrino.command.grammar.CommandGrammar;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import reactor.core.publisher.Mono;
+import ultimategdbot.Strings;
+import ultimategdbot.service.GDCommandCooldown;
+import ultimategdbot.service.LevelAnalysisService;
+
+@CommandCategory(CommandCategory.GD)
+@Alias({"analyze", "analyse"})
+@TopLevelCommand
+@RdiService
+public final class AnalyzeCommand implements Command {
+
+    private final GDCommandCooldown commandCooldown;
+    private final LevelAnalysisService analysisService;
+
+    private final CommandGrammar<Args> grammar = CommandGrammar.builder()
+            .nextArgument("levelId", ArgumentMapper.asLong())
+            .build(Args.class);
+
+    @RdiFactory
+    public AnalyzeCommand(GDCommandCooldown commandCooldown, LevelAnalysisService analysisService) {
+        this.commandCooldown = commandCooldown;
+        this.analysisService = analysisService;
+    }
+
+    @Override
+    public Mono<Void> run(CommandContext ctx) {
+        return grammar.resolve(ctx)
+                .flatMap(args -> analysisService.analysisEmbed(ctx, args.levelId))
+                .flatMap(ctx.channel()::createEmbed)
+                .then();
+    }
+
+    @Override
+    public CommandDocumentation documentation(Translator tr) {
+        return CommandDocumentation.builder()
+                .setSyntax(grammar.toString())
+                .setDescription(tr.translate(Strings.HELP, "analyze_description"))
+                .setBody(tr.translate(Strings.HELP, "analyze_body"))
+                .build();
+    }
+
+    @Override
+    public Cooldown cooldown() {
+        return commandCooldown.get();
+    }
+
+    private static final class Args {
+        long levelId;
+    }
+}
@@ -10,6 +10,8 @@ import botrino.command.grammar.CommandGrammar;
 import botrino.command.menu.PageNumberOutOfRangeException;
 import com.github.alex1304.rdi.finder.annotation.RdiFactory;
 import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import discord4j.common.store.action.read.ReadActions;
 import discord4j.common.store.api.object.ExactResultNotAvailableException;
 import discord4j.core.object.entity.Guild;
@@ -22,27 +24,32 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.annotation.Nullable;
 import ultimategdbot.Strings;
-import ultimategdbot.database.GdLeaderboard;
-import ultimategdbot.database.GdLeaderboardBan;
+import ultimategdbot.database.GdLeaderboardAggregationDao;
+import ultimategdbot.database.GdLeaderboardBanSet;
+import ultimategdbot.database.GdLeaderboardRow;
+import ultimategdbot.database.GdLeaderboardStat;
 import ultimategdbot.database.GdLinkedUser;
 import ultimategdbot.database.ImmutableGdLeaderboardBan;
+import ultimategdbot.database.ImmutableGdLeaderboardRow;
 import ultimategdbot.service.DatabaseService;
 import ultimategdbot.service.EmojiService;
 import ultimategdbot.service.GDUserService;
+import ultimategdbot.service.LeaderboardHistoryService;
 import ultimategdbot.service.PrivilegeFactory;
-import ultimategdbot.util.GDFormatter;
 
+import java.text.Collator;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.function.IntFunction;
-import java.util.function.ToIntFunction;
+import java.util.function.LongFunction;
 import java.util.stream.Collectors;
 
 import static botrino.api.util.Markdown.bold;
 import static botrino.api.util.Markdown.underline;
 import static java.util.function.Predicate.not;
-import static java.util.stream.Collectors.toCollection;
-import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.*;
 import static reactor.function.TupleUtils.function;
 import static ultimategdbot.util.InteractionUtils.unexpectedReply;
 
@@ -53,22 +60,42 @@ import static ultimategdbot.util.InteractionUtils.unexpectedReply;
 public final class LeaderboardCommand implements Command {
 
     private static final int ENTRIES_PER_PAGE = 20;
+    private static final int MAX_ROW_LENGTH = 100;
+    private static final String PADDING_UNIT = " ‌‌";
+    private static final String[] PADDINGS = paddings();
+    private static final Map<String, GdLeaderboardStat> STAT_NAMES = Map.of(
+            "stars", GdLeaderboardStat.STARS,
+            "diamonds", GdLeaderboardStat.DIAMONDS,
+            "ucoins", GdLeaderboardStat.USER_COINS,
+            "scoins", GdLeaderboardStat.SECRET_COINS,
+            "demons", GdLeaderboardStat.DEMONS,
+            "cp", GdLeaderboardStat.CREATOR_POINTS);
+    private static final ThreadLocal<StringBuilder> ROW_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
 
     private final DatabaseService db;
     private final EmojiService emoji;
     private final CommandService commandService;
     private final GDUserService userService;
     private final PrivilegeFactory privilegeFactory;
+    private final LeaderboardHistoryService historyService;
 
     private final CommandGrammar<Args> grammar = CommandGrammar.builder()
             .beginOptionalArguments()
             .nextArgument("statName")
             .build(Args.class);
+    private final CommandGrammar<Args> climbersGrammar = CommandGrammar.builder()
+            .nextArgument("statName")
+            .build(Args.class);
     private final CommandGrammar<BanArgs> banGrammar;
+    private final Cache<PageKey, String> pageCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
 
     @RdiFactory
     public LeaderboardCommand(DatabaseService db, EmojiService emoji, CommandService commandService,
-                              GDUserService userService, PrivilegeFactory privilegeFactory) {
+                              GDUserService userService, PrivilegeFactory privilegeFactory,
+                              LeaderboardHistoryService historyService) {
         this.db = db;
         this.emoji = emoji;
         this.commandService = commandService;
@@ -77,58 +104,169 @@ public final class LeaderboardCommand implements Command {
                 .nextArgument("gdUser", userService::stringToUser)
                 .build(BanArgs.class);
         this.privilegeFactory = privilegeFactory;
+        this.historyService = historyService;
     }
 
-    private static EmbedCreateSpec leaderboardEmbed(Translator tr, String prefix, Guild guild,
-                                                    List<LeaderboardEntry> entryList, int page,
-                                                    @Nullable String highlighted, String emoji) {
-        final var size = entryList.size();
-        final var maxPage = (size - 1) / ENTRIES_PER_PAGE;
-        final var offset = page * ENTRIES_PER_PAGE;
-        final var subList = entryList.subList(offset, Math.min(offset + ENTRIES_PER_PAGE, size));
+    private static EmbedCreateSpec leaderboardEmbed(Translator tr, String prefix, Guild guild, int total, int page,
+                                                    String rows, String emoji) {
+        final var maxPage = (total - 1) / ENTRIES_PER_PAGE;
         var embed = EmbedCreateSpec.builder()
                 .title(tr.translate(Strings.GD, "lb_title", guild.getName()));
-        if (size == 0 || subList.isEmpty()) {
+        if (total == 0 || rows.isEmpty()) {
             return embed.description(tr.translate(Strings.GD, "lb_no_entries")).build();
         }
-        var sb = new StringBuilder();
-        var rankWidth = (int) Math.log10(size) + 1;
-        var statWidth = (int) Math.log10(subList.get(0).getValue()) + 1;
-        final var maxRowLength = 100;
-        for (var i = 1; i <= subList.size(); i++) {
-            var entry = subList.get(i - 1);
-            var isHighlighted = entry.getStats().name().equalsIgnoreCase(highlighted);
-            var rank = page * ENTRIES_PER_PAGE + i;
+        embed.description("**" + tr.translate(Strings.GD, "lb_total_players", total, emoji) + "**\n\n" + rows);
+        embed.addField("───────────",
+                tr.translate(Strings.GD, "lb_account_notice", prefix), false);
+        if (maxPage > 0) {
+            embed.addField(tr.translate(Strings.GENERAL, "page_x", page + 1, maxPage + 1),
+                    tr.translate(Strings.GENERAL, "page_instructions") + '\n' +
+                            tr.translate(Strings.GD, "lb_jump_to_user"), false);
+        }
+        return embed.build();
+    }
+
+    private static EmbedCreateSpec climbersEmbed(Translator tr, Guild guild, List<LeaderboardEntry> entryList,
+                                                 String emoji) {
+        final var embed = EmbedCreateSpec.builder()
+                .title(tr.translate(Strings.GD, "lb_climbers_title", guild.getName()));
+        if (entryList.isEmpty()) {
+            return embed.description(tr.translate(Strings.GD, "lb_no_entries")).build();
+        }
+        return embed.description("**" + tr.translate(Strings.GD, "lb_climbers_subtitle", emoji) + "**\n\n" +
+                renderRows(entryList, 0, entryList.size(), null, emoji, true)).build();
+    }
+
+    private static String renderRows(List<LeaderboardEntry> subList, int offset, int total,
+                                     @Nullable String highlighted, String emoji, boolean signed) {
+        final var rankWidth = stringSize(total);
+        final var topValue = subList.get(0).getValue();
+        final var statWidth = topValue > 0 ? stringSize(topValue) : 0;
+        final var sb = ROW_BUFFER.get();
+        sb.setLength(0);
+        for (var i = 0; i < subList.size(); i++) {
+            final var entry = subList.get(i);
+            final var isHighlighted = entry.getStats().name().equalsIgnoreCase(highlighted);
+            final var rank = offset + i + 1;
             if (isHighlighted) {
                 sb.append("**");
             }
-            var row = String.format("%s | %s %s | %s (%s)",
-                    String.format("`#%" + rankWidth + "d`", rank).replaceAll(" ", " ‌‌"),
-                    emoji,
-                    GDFormatter.formatCode(entry.getValue(), statWidth),
-                    entry.getStats().name(),
-                    entry.getDiscordUser());
-            if (row.length() > maxRowLength) {
-                row = row.substring(0, maxRowLength - 3) + "...";
+            final var rowStart = sb.length();
+            sb.append("`#");
+            appendPadding(sb, rankWidth - stringSize(rank));
+            sb.append(rank).append("` | ").append(emoji).append(" `");
+            appendPadding(sb, statWidth - stringSize(entry.getValue()) + 1);
+            if (signed && entry.getValue() > 0) {
+                sb.append('+');
+            }
+            sb.append(entry.getValue()).append("` | ")
+                    .append(entry.getStats().name())
+                    .append(" (").append(entry.getDiscordUser()).append(')');
+            if (sb.length() - rowStart > MAX_ROW_LENGTH) {
+                sb.setLength(rowStart + MAX_ROW_LENGTH - 3);
+                sb.append("...");
             }
-            sb.append(row).append("\n");
+            sb.append('\n');
             if (isHighlighted) {
                 sb.append("**");
             }
         }
-        embed.description("**" + tr.translate(Strings.GD, "lb_total_players", size, emoji) + "**\n\n" + sb);
-        embed.addField("───────────",
-                tr.translate(Strings.GD, "lb_account_notice", prefix), false);
-        if (maxPage > 0) {
-            embed.addField(tr.translate(Strings.GENERAL, "page_x", page + 1, maxPage + 1),
-                    tr.translate(Strings.GENERAL, "page_instructions") + '\n' +
-                            tr.translate(Strings.GD, "lb_jump_to_user"), false);
+        return sb.toString();
+    }
+
+    private static void appendPadding(StringBuilder sb, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (count < PADDINGS.length) {
+            sb.append(PADDINGS[count]);
+            return;
+        }
+        for (var i = 0; i < count; i++) {
+            sb.append(PADDING_UNIT);
+        }
+    }
+
+    private static int stringSize(int value) {
+        var size = value < 0 ? 2 : 1;
+        for (var v = Math.abs((long) value); v >= 10; v /= 10) {
+            size++;
+        }
+        return size;
+    }
+
+    private static String[] paddings() {
+        final var paddings = new String[12];
+        paddings[0] = "";
+        for (var i = 1; i < paddings.length; i++) {
+            paddings[i] = paddings[i - 1] + PADDING_UNIT;
+        }
+        return paddings;
+    }
+
+    private static int indexOfAccount(List<LeaderboardEntry> entryList, long accountId) {
+        for (var i = 0; i < entryList.size(); i++) {
+            if (entryList.get(i).getStats().accountId() == accountId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long dataVersion(List<LeaderboardEntry> entryList) {
+        var version = 1L;
+        for (final var entry : entryList) {
+            version = 31 * version + entry.getStats().accountId();
+            version = 31 * version + entry.getValue();
+            version = 31 * version + entry.getStats().name().hashCode();
+            version = 31 * version + entry.getDiscordUser().hashCode();
+        }
+        return version;
+    }
+
+    private String statEmoji(GdLeaderboardStat stat) {
+        switch (stat) {
+            case STARS:
+                return emoji.get("star");
+            case DIAMONDS:
+                return emoji.get("diamond");
+            case USER_COINS:
+                return emoji.get("user_coin");
+            case SECRET_COINS:
+                return emoji.get("secret_coin");
+            case DEMONS:
+                return emoji.get("demon");
+            case CREATOR_POINTS:
+                return emoji.get("creator_points");
+            default:
+                throw new AssertionError();
         }
-        return embed.build();
     }
 
-    private static List<Long> gdAccIds(List<GdLinkedUser> l) {
-        return l.stream().map(GdLinkedUser::gdUserId).collect(Collectors.toList());
+    private Mono<List<LeaderboardEntry>> guildEntries(Guild guild, GdLeaderboardStat stat) {
+        final var noBanList = stat == GdLeaderboardStat.CREATOR_POINTS;
+        return getMembers(guild)
+                .collect(toMap(m -> m.getId().asLong(), User::getTag, (a, b) -> a))
+                .filter(not(Map::isEmpty))
+                .flatMap(members -> db.gdLinkedUserDao().getAllIn(List.copyOf(members.keySet()))
+                        .collectList()
+                        .filter(not(List::isEmpty))
+                        .map(linkedUsers -> linkedUsers.stream()
+                                .collect(groupingBy(GdLinkedUser::gdUserId,
+                                        mapping(GdLinkedUser::discordUserId, toList()))))
+                        .flatMap(discordIdsByGdId -> {
+                            final var gdAccIds = List.copyOf(discordIdsByGdId.keySet());
+                            return Mono.zip(
+                                    db.gdLeaderboardDao().getStatIn(gdAccIds, stat).collectList(),
+                                    db.gdLeaderboardBanDao().getBanSet())
+                                    .map(function((rows, bans) -> rows.stream()
+                                            .filter(row -> noBanList || !bans.contains(row.accountId()))
+                                            .flatMap(row -> discordIdsByGdId.get(row.accountId())
+                                                    .stream()
+                                                    .map(discordUserId -> new LeaderboardEntry(row, discordUserId,
+                                                            members.get(discordUserId))))
+                                            .collect(Collectors.toList())));
+                        }));
     }
 
     private static Flux<Member> getMembers(Guild guild) {
@@ -158,110 +296,148 @@ public final class LeaderboardCommand implements Command {
                                 emoji.get("creator_points") + " Creator Points", ctx.getPrefixUsed(), "cp") + '\n')
                         .then();
             }
-            ToIntFunction<GdLeaderboard> stat;
-            String statEmoji;
-            boolean noBanList;
-            switch (args.statName.toLowerCase()) {
-                case "stars":
-                    stat = GdLeaderboard::stars;
-                    statEmoji = emoji.get("star");
-                    noBanList = false;
-                    break;
-                case "diamonds":
-                    stat = GdLeaderboard::diamonds;
-                    statEmoji = emoji.get("diamond");
-                    noBanList = false;
-                    break;
-                case "ucoins":
-                    stat = GdLeaderboard::userCoins;
-                    statEmoji = emoji.get("user_coin");
-                    noBanList = false;
-                    break;
-                case "scoins":
-                    stat = GdLeaderboard::secretCoins;
-                    statEmoji = emoji.get("secret_coin");
-                    noBanList = false;
-                    break;
-                case "demons":
-                    stat = GdLeaderboard::demons;
-                    statEmoji = emoji.get("demon");
-                    noBanList = false;
-                    break;
-                case "cp":
-                    stat = GdLeaderboard::creatorPoints;
-                    statEmoji = emoji.get("creator_points");
-                    noBanList = true;
-                    break;
-                default:
-                    return Mono.error(new CommandFailedException(ctx.translate(Strings.GD, "error_unknown_lb_type")));
+            final var stat = STAT_NAMES.get(args.statName.toLowerCase());
+            if (stat == null) {
+                return Mono.error(new CommandFailedException(ctx.translate(Strings.GD, "error_unknown_lb_type")));
             }
+            final var statEmoji = statEmoji(stat);
             return ctx.event().getGuild()
-                    .flatMap(guild -> getMembers(guild)
-                            .collect(toMap(m -> m.getId().asLong(), User::getTag, (a, b) -> a))
-                            .filter(not(Map::isEmpty))
-                            .flatMap(members -> db.gdLinkedUserDao().getAllIn(List.copyOf(members.keySet()))
-                                    .collectList()
-                                    .filter(not(List::isEmpty))
-                                    .flatMap(linkedUsers -> Mono.zip(
-                                            db.gdLeaderboardDao().getAllIn(gdAccIds(linkedUsers)).collectList(),
-                                            db.gdLeaderboardBanDao().getAllIn(gdAccIds(linkedUsers))
-                                                    .map(GdLeaderboardBan::accountId)
-                                                    .collect(Collectors.toUnmodifiableSet()))
-                                            .map(function((userStats, bans) -> userStats.stream()
-                                                    .filter(u -> noBanList || !bans.contains(u.accountId()))
-                                                    .flatMap(u -> linkedUsers.stream()
-                                                            .filter(l -> l.gdUserId() == u.accountId())
-                                                            .map(GdLinkedUser::discordUserId)
-                                                            .map(members::get)
-                                                            .map(tag -> new LeaderboardEntry(
-                                                                    stat.applyAsInt(u), u, tag)))
-                                                    .collect(toCollection(TreeSet::new))
-                                            ))))
-                            .map(List::copyOf)
+                    .flatMap(guild -> db.gdLeaderboardAggregationDao()
+                            .map(dao -> runAggregated(ctx, guild, dao, stat, statEmoji))
+                            .orElseGet(() -> runInMemory(ctx, guild, stat, statEmoji)));
+        }).then();
+    }
+
+    private Mono<Void> runInMemory(CommandContext ctx, Guild guild, GdLeaderboardStat stat, String statEmoji) {
+        return guildEntries(guild, stat)
+                .map(entries -> List.copyOf(new TreeSet<>(entries)))
+                .defaultIfEmpty(List.of())
+                .flatMap(list -> {
+                    final var dataVersion = dataVersion(list);
+                    return sendLeaderboard(ctx, guild, list.size(), statEmoji,
+                            (page, highlighted) -> {
+                                final var key = new PageKey(guild.getId().asLong(), stat, dataVersion, page,
+                                        highlighted == null ? "" : highlighted.toLowerCase(), statEmoji);
+                                return Mono.just(pageCache.get(key, k -> {
+                                    final var offset = page * ENTRIES_PER_PAGE;
+                                    if (offset >= list.size()) {
+                                        return "";
+                                    }
+                                    return renderRows(list.subList(offset,
+                                            Math.min(offset + ENTRIES_PER_PAGE, list.size())),
+                                            offset, list.size(), highlighted, statEmoji, false);
+                                }));
+                            },
+                            accountId -> Mono.just(indexOfAccount(list, accountId)).filter(rank -> rank != -1));
+                });
+    }
+
+    private Mono<Void> runAggregated(CommandContext ctx, Guild guild, GdLeaderboardAggregationDao dao,
+                                     GdLeaderboardStat stat, String statEmoji) {
+        return Mono.zip(
+                getMembers(guild).collect(toMap(m -> m.getId().asLong(), User::getTag, (a, b) -> a)),
+                stat == GdLeaderboardStat.CREATOR_POINTS
+                        ? Mono.just(new long[0])
+                        : db.gdLeaderboardBanDao().getBanSet().map(GdLeaderboardBanSet::toArray))
+                .flatMap(function((members, bans) -> {
+                    final var discordUserIds = List.copyOf(members.keySet());
+                    // The first page carries the total, so it is reused instead of counting entries separately
+                    return dao.getPage(discordUserIds, stat, bans, 0, ENTRIES_PER_PAGE)
+                            .flatMap(firstPage -> sendLeaderboard(ctx, guild, firstPage.total(), statEmoji,
+                                    (page, highlighted) -> (page == 0 ? Mono.just(firstPage) : dao
+                                            .getPage(discordUserIds, stat, bans,
+                                                    page * ENTRIES_PER_PAGE, ENTRIES_PER_PAGE))
+                                            .map(result -> result.entries().isEmpty() ? "" : renderRows(
+                                                    result.entries().stream()
+                                                            .map(entry -> new LeaderboardEntry(entry.row(),
+                                                                    entry.discordUserId(),
+                                                                    members.get(entry.discordUserId())))
+                                                            .collect(Collectors.toList()),
+                                                    page * ENTRIES_PER_PAGE, result.total(), highlighted,
+                                                    statEmoji, false)),
+                                    accountId -> dao.getRank(discordUserIds, stat, bans, accountId)));
+                }));
+    }
+
+    private Mono<Void> sendLeaderboard(CommandContext ctx, Guild guild, int total, String statEmoji,
+                                       BiFunction<Integer, String, Mono<String>> pageRows,
+                                       LongFunction<Mono<Integer>> rankOf) {
+        if (total == 0) {
+            return ctx.channel().createEmbed(leaderboardEmbed(ctx, ctx.getPrefixUsed(), guild, 0, 0, "",
+                    statEmoji)).then();
+        }
+        if (total <= ENTRIES_PER_PAGE) {
+            return pageRows.apply(0, null)
+                    .flatMap(rows -> ctx.channel().createEmbed(leaderboardEmbed(ctx, ctx.getPrefixUsed(), guild,
+                            total, 0, rows, statEmoji)))
+                    .then();
+        }
+        final var maxPage = (total - 1) / ENTRIES_PER_PAGE;
+        final var highlighted = new AtomicReference<String>();
+        final IntFunction<Mono<MessageTemplate>> templateGenerator = page -> pageRows.apply(page, highlighted.get())
+                .map(rows -> MessageTemplate.builder()
+                        .setEmbed(leaderboardEmbed(ctx, ctx.getPrefixUsed(), guild, total, page, rows, statEmoji))
+                        .build());
+        return commandService.interactiveMenuFactory()
+                .createPaginated((tr, page) -> {
+                    PageNumberOutOfRangeException.check(page, maxPage);
+                    return templateGenerator.apply(page);
+                })
+                .addMessageItem("finduser", interaction -> Mono
+                        .just(interaction.getInput().getArguments().stream().skip(1)
+                                .collect(Collectors.joining(" ")))
+                        .filter(not(String::isEmpty))
+                        .switchIfEmpty(unexpectedReply(ctx,
+                                ctx.translate(Strings.GD, "error_username_not_specified")))
+                        .flatMap(userName -> userService.stringToUser(ctx, userName))
+                        .onErrorResume(GDClientException.class, e -> unexpectedReply(ctx,
+                                ctx.translate(Strings.GD, "error_user_fetch")))
+                        .flatMap(gdUser -> rankOf.apply(gdUser.accountId())
+                                .switchIfEmpty(unexpectedReply(ctx,
+                                        ctx.translate(Strings.GD, "error_user_not_on_lb")))
+                                .flatMap(rank -> {
+                                    final var jumpTo = rank / ENTRIES_PER_PAGE;
+                                    interaction.set("currentPage", jumpTo);
+                                    highlighted.set(gdUser.name());
+                                    return templateGenerator.apply(jumpTo);
+                                })
+                                .flatMap(template -> interaction.getMenuMessage().edit(template.toEditSpec()))
+                                .then()))
+                .open(ctx);
+    }
+
+    private Mono<Void> runClimbers(CommandContext ctx) {
+        return climbersGrammar.resolve(ctx).flatMap(args -> {
+            final var stat = STAT_NAMES.get(args.statName.toLowerCase());
+            if (stat == null) {
+                return Mono.error(new CommandFailedException(ctx.translate(Strings.GD, "error_unknown_lb_type")));
+            }
+            final var statEmoji = statEmoji(stat);
+            return ctx.event().getGuild()
+                    .flatMap(guild -> guildEntries(guild, stat)
+                            .flatMap(entries -> historyService
+                                    .weeklyDelta(entries.stream()
+                                            .mapToLong(entry -> entry.getStats().accountId())
+                                            .toArray(), stat)
+                                    .switchIfEmpty(Mono.error(new CommandFailedException(
+                                            ctx.translate(Strings.GD, "error_lb_no_history"))))
+                                    .map(deltas -> {
+                                        final var climbers = new TreeSet<LeaderboardEntry>();
+                                        for (var i = 0; i < deltas.length; i++) {
+                                            if (deltas[i] <= 0) {
+                                                continue;
+                                            }
+                                            final var entry = entries.get(i);
+                                            climbers.add(new LeaderboardEntry(ImmutableGdLeaderboardRow.of(
+                                                    entry.getStats().accountId(), entry.getStats().name(),
+                                                    deltas[i]), entry.discordUserId, entry.getDiscordUser()));
+                                        }
+                                        return climbers.stream()
+                                                .limit(ENTRIES_PER_PAGE)
+                                                .collect(Collectors.toList());
+                                    }))
                             .defaultIfEmpty(List.of())
-                            .flatMap(list -> {
-                                if (list.size() <= ENTRIES_PER_PAGE) {
-                                    return ctx.channel().createEmbed(leaderboardEmbed(ctx, ctx.getPrefixUsed(), guild,
-                                            list, 0, null, statEmoji)).then();
-                                }
-                                final var highlighted = new AtomicReference<String>();
-                                final IntFunction<MessageTemplate> templateGenerator = page -> MessageTemplate.builder()
-                                        .setEmbed(leaderboardEmbed(ctx, ctx.getPrefixUsed(), guild, list, page,
-                                                highlighted.get(), statEmoji))
-                                        .build();
-                                return commandService.interactiveMenuFactory()
-                                        .createPaginated((tr, page) -> {
-                                            PageNumberOutOfRangeException.check(page,
-                                                    (list.size() - 1) / ENTRIES_PER_PAGE);
-                                            return Mono.just(templateGenerator.apply(page));
-                                        })
-                                        .addMessageItem("finduser", interaction -> Mono
-                                                .just(interaction.getInput().getArguments().stream().skip(1)
-                                                        .collect(Collectors.joining(" ")))
-                                                .filter(not(String::isEmpty))
-                                                .switchIfEmpty(unexpectedReply(ctx,
-                                                        ctx.translate(Strings.GD, "error_username_not_specified")))
-                                                .flatMap(userName -> userService.stringToUser(ctx, userName))
-                                                .onErrorResume(GDClientException.class, e -> unexpectedReply(ctx,
-                                                        ctx.translate(Strings.GD, "error_user_fetch")))
-                                                .flatMap(gdUser -> {
-                                                    final var ids = list.stream()
-                                                            .map(entry -> entry.getStats().accountId())
-                                                            .collect(Collectors.toList());
-                                                    final var rank = ids.indexOf(gdUser.accountId());
-                                                    if (rank == -1) {
-                                                        return unexpectedReply(ctx,
-                                                                ctx.translate(Strings.GD, "error_user_not_on_lb"));
-                                                    }
-                                                    final var jumpTo = rank / ENTRIES_PER_PAGE;
-                                                    interaction.set("currentPage", jumpTo);
-                                                    highlighted.set(gdUser.name());
-                                                    return interaction.getMenuMessage()
-                                                            .edit(templateGenerator.apply(jumpTo).toEditSpec())
-                                                            .then();
-                                                }))
-                                        .open(ctx);
-                            })).then();
+                            .flatMap(list -> ctx.channel().createEmbed(climbersEmbed(ctx, guild, list, statEmoji))));
         }).then();
     }
 
@@ -298,6 +474,13 @@ public final class LeaderboardCommand implements Command {
     @Override
     public Set<Command> subcommands() {
         return Set.of(
+                Command.builder("climbers", this::runClimbers)
+                        .setDocumentation(tr -> CommandDocumentation.builder()
+                                .setSyntax(climbersGrammar.toString())
+                                .setDescription(tr.translate(Strings.HELP, "leaderboard_climbers_description"))
+                                .setBody(tr.translate(Strings.HELP, "leaderboard_climbers_body"))
+                                .build())
+                        .build(),
                 Command.builder("ban", this::runBan)
                         .setDocumentation(tr -> CommandDocumentation.builder()
                                 .setSyntax(grammar.toString())
@@ -323,13 +506,18 @@ public final class LeaderboardCommand implements Command {
     }
 
     private static class LeaderboardEntry implements Comparable<LeaderboardEntry> {
+        // Same ordering as the case-insensitive collation used when the leaderboard is computed in database
+        private static final Collator NAME_COLLATOR = nameCollator();
+
         private final int value;
-        private final GdLeaderboard stats;
+        private final GdLeaderboardRow stats;
+        private final long discordUserId;
         private final String discordUser;
 
-        public LeaderboardEntry(int value, GdLeaderboard stats, String discordUser) {
-            this.value = value;
+        public LeaderboardEntry(GdLeaderboardRow stats, long discordUserId, String discordUser) {
+            this.value = stats.value();
             this.stats = Objects.requireNonNull(stats);
+            this.discordUserId = discordUserId;
             this.discordUser = Objects.requireNonNull(discordUser);
         }
 
@@ -337,7 +525,7 @@ public final class LeaderboardCommand implements Command {
             return value;
         }
 
-        public GdLeaderboard getStats() {
+        public GdLeaderboardRow getStats() {
             return stats;
         }
 
@@ -347,7 +535,18 @@ public final class LeaderboardCommand implements Command {
 
         @Override
         public int compareTo(LeaderboardEntry o) {
-            return value == o.value ? stats.name().compareToIgnoreCase(o.stats.name()) : o.value - value;
+            if (value != o.value) {
+                return o.value - value;
+            }
+            final var byName = NAME_COLLATOR.compare(stats.name(), o.stats.name());
+            // Several Discord users may be linked to the same GD account, each of them gets their own entry
+            return byName != 0 ? byName : Long.compare(discordUserId, o.discordUserId);
+        }
+
+        private static Collator nameCollator() {
+            final var collator = Collator.getInstance(Locale.ENGLISH);
+            collator.setStrength(Collator.SECONDARY);
+            return collator;
         }
 
         @Override
@@ -356,6 +555,39 @@ public final class LeaderboardCommand implements Command {
         }
     }
 
+    private static final class PageKey {
+        private final long guildId;
+        private final GdLeaderboardStat stat;
+        private final long dataVersion;
+        private final int page;
+        private final String highlighted;
+        private final String emoji;
+
+        private PageKey(long guildId, GdLeaderboardStat stat, long dataVersion, int page, String highlighted,
+                        String emoji) {
+            this.guildId = guildId;
+            this.stat = stat;
+            this.dataVersion = dataVersion;
+            this.page = page;
+            this.highlighted = highlighted;
+            this.emoji = emoji;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PageKey pageKey = (PageKey) o;
+            return guildId == pageKey.guildId && dataVersion == pageKey.dataVersion && page == pageKey.page
+                    && stat == pageKey.stat && highlighted.equals(pageKey.highlighted) && emoji.equals(pageKey.emoji);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(guildId, stat, dataVersion, page, highlighted, emoji);
+        }
+    }
+
     private static final class Args {
         String statName;
     }
@@ -18,6 +18,7 @@ import reactor.core.publisher.Mono;
 import ultimategdbot.Strings;
 import ultimategdbot.service.GDCommandCooldown;
 import ultimategdbot.service.GDLevelService;
+import ultimategdbot.service.LevelSearchIndex;
 
 import static ultimategdbot.util.InteractionUtils.writeOnlyIfRefresh;
 
@@ -29,6 +30,7 @@ public final class LevelCommand implements Command {
 
     private final GDCommandCooldown commandCooldown;
     private final GDLevelService levelService;
+    private final LevelSearchIndex searchIndex;
     private final GDClient gdClient;
 
     private final CommandGrammar<Args> grammar = CommandGrammar.builder()
@@ -36,9 +38,11 @@ public final class LevelCommand implements Command {
             .build(Args.class);
 
     @RdiFactory
-    public LevelCommand(GDCommandCooldown commandCooldown, GDLevelService levelService, GDClient gdClient) {
+    public LevelCommand(GDCommandCooldown commandCooldown, GDLevelService levelService,
+                        LevelSearchIndex searchIndex, GDClient gdClient) {
         this.commandCooldown = commandCooldown;
         this.levelService = levelService;
+        this.searchIndex = searchIndex;
         this.gdClient = gdClient;
     }
 
@@ -49,6 +53,12 @@ public final class LevelCommand implements Command {
             if (!query.matches("[a-zA-Z0-9 _-]+")) {
                 return Mono.error(new CommandFailedException(ctx.translate(Strings.GD, "error_invalid_characters")));
             }
+            final var ratedOnly = ctx.input().getFlag("rated").isPresent();
+            if (ratedOnly || ctx.input().getFlag("local").isPresent()) {
+                return levelService.interactiveLocalSearch(ctx,
+                        ctx.translate(Strings.GD, "local_search_results", query),
+                        searchIndex.search(query, ratedOnly));
+            }
             return levelService.interactiveSearch(ctx, ctx.translate(Strings.GD, "search_results", query),
                     page -> gdClient.browseLevels(LevelBrowseMode.SEARCH, query, null, page));
         }).then();
@@ -64,6 +74,14 @@ public final class LevelCommand implements Command {
                         .setValueFormat("refresh")
                         .setDescription(tr.translate(Strings.HELP, "common_flag_refresh"))
                         .build())
+                .addFlag(FlagInformation.builder()
+                        .setValueFormat("local")
+                        .setDescription(tr.translate(Strings.HELP, "level_flag_local"))
+                        .build())
+                .addFlag(FlagInformation.builder()
+                        .setValueFormat("rated")
+                        .setDescription(tr.translate(Strings.HELP, "level_flag_rated"))
+                        .build())
                 .build();
     }
 
@@ -12,8 +12,6 @@ import botrino.command.privilege.Privilege;
 import com.github.alex1304.rdi.finder.annotation.RdiFactory;
 import com.github.alex1304.rdi.finder.annotation.RdiService;
 import jdash.common.Role;
-import jdash.common.entity.GDUserProfile;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ultimategdbot.Strings;
 import ultimategdbot.database.ImmutableGdMod;
@@ -25,6 +23,7 @@ import ultimategdbot.service.GDUserService;
 import ultimategdbot.service.PrivilegeFactory;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static ultimategdbot.event.ModStatusUpdate.Type.*;
 
@@ -36,30 +35,33 @@ public final class ModWaveCommand implements Command {
 
     private final DatabaseService db;
     private final EmojiService emoji;
+    private final GDUserService gdUserService;
     private final PrivilegeFactory privilegeFactory;
     private final ManualEventProducer eventProducer;
 
-    private final CommandGrammar<Args> grammar;
+    private final CommandGrammar<Args> grammar = CommandGrammar.builder()
+            .setVarargs(true)
+            .nextArgument("gdUsers")
+            .build(Args.class);
 
     @RdiFactory
     public ModWaveCommand(DatabaseService db, EmojiService emoji, GDUserService gdUserService,
                           PrivilegeFactory privilegeFactory, ManualEventProducer eventProducer) {
         this.db = db;
         this.emoji = emoji;
-        this.grammar = CommandGrammar.builder()
-                .setVarargs(true)
-                .nextArgument("gdUsers", gdUserService::stringToUserAlwaysRefresh)
-                .build(Args.class);
+        this.gdUserService = gdUserService;
         this.privilegeFactory = privilegeFactory;
         this.eventProducer = eventProducer;
     }
 
     @Override
     public Mono<Void> run(CommandContext ctx) {
+        final var unresolved = new ConcurrentLinkedQueue<String>();
         return grammar.resolve(ctx)
-                .flatMapMany(args -> Flux.fromIterable(args.gdUsers))
+                .filter(args -> !args.gdUsers.isEmpty())
                 .switchIfEmpty(Mono.error(new CommandFailedException(
                         ctx.translate(Strings.GD, "error_at_least_one_user"))))
+                .flatMapMany(args -> gdUserService.getProfiles(ctx, args.gdUsers, true, unresolved::add))
                 .flatMap(user ->
                         ctx.channel()
                         .createMessage(ctx.translate(Strings.GD, "checking_mod", user.name()) + "\n||" +
@@ -101,6 +103,9 @@ public final class ModWaveCommand implements Command {
                             return db.gdModDao().save(newGdMod.build());
                         })
                 )
+                .then(Mono.defer(() -> unresolved.isEmpty() ? Mono.empty() : ctx.channel()
+                        .createMessage(emoji.get("failed") + ' ' + ctx.translate(Strings.GD, "users_not_found",
+                                String.join(", ", unresolved)))))
                 .then();
     }
 
@@ -119,6 +124,6 @@ public final class ModWaveCommand implements Command {
     }
 
     private static final class Args {
-        List<GDUserProfile> gdUsers;
+        List<String> gdUsers;
     }
 }
@@ -7,12 +7,16 @@ import botrino.command.CommandContext;
 import botrino.command.annotation.Alias;
 import botrino.command.annotation.TopLevelCommand;
 import botrino.command.doc.CommandDocumentation;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
 import com.sun.management.GarbageCollectionNotificationInfo;
 import discord4j.core.spec.EmbedCreateSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 import ultimategdbot.Strings;
+import ultimategdbot.service.GDClientCache;
+import ultimategdbot.service.GDUserService;
 import ultimategdbot.util.SystemUnit;
 
 import javax.management.NotificationEmitter;
@@ -23,13 +27,21 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @CommandCategory(CommandCategory.GENERAL)
 @Alias("runtime")
 @TopLevelCommand
+@RdiService
 public final class RuntimeCommand implements Command {
 
-    public RuntimeCommand() {
+    private final GDUserService userService;
+    private final GDClientCache gdClientCache;
+
+    @RdiFactory
+    public RuntimeCommand(GDUserService userService, GDClientCache gdClientCache) {
+        this.userService = userService;
+        this.gdClientCache = gdClientCache;
         MemoryStats.start();
     }
 
@@ -39,6 +51,8 @@ public final class RuntimeCommand implements Command {
                 Mono.zip(objArray -> Flux.fromArray(objArray).cast(EmbedField.class).collectList(),
                         uptime(ctx),
                         memory(ctx),
+                        iconRendering(ctx),
+                        gdCache(ctx),
                         shardInfo(ctx))
                         .flatMap(Function.identity())
                         .flatMap(embedFields -> {
@@ -83,6 +97,26 @@ public final class RuntimeCommand implements Command {
                 });
     }
 
+    private Mono<EmbedField> iconRendering(Translator tr) {
+        final var queueWait = userService.iconRenderQueueWait();
+        final var renderTime = userService.iconRenderTime();
+        return Mono.just(new EmbedField(tr.translate(Strings.GENERAL, "icon_rendering"),
+                tr.translate(Strings.GENERAL, "icon_render_count", renderTime.count(),
+                        userService.coalescedIconSetRequests()) + '\n' +
+                        tr.translate(Strings.GENERAL, "icon_render_queue_wait", queueWait.average().toMillis(),
+                                queueWait.max().toMillis()) + '\n' +
+                        tr.translate(Strings.GENERAL, "icon_render_time", renderTime.average().toMillis(),
+                                renderTime.max().toMillis())));
+    }
+
+    private Mono<EmbedField> gdCache(Translator tr) {
+        return Mono.just(new EmbedField(tr.translate(Strings.GENERAL, "gd_cache"),
+                gdClientCache.stats().stream()
+                        .map(stats -> tr.translate(Strings.GENERAL, "gd_cache_class", stats.name(), stats.size(),
+                                stats.hits(), stats.misses(), String.format("%.2f", stats.hitRate() * 100)))
+                        .collect(Collectors.joining("\n"))));
+    }
+
     private static Mono<EmbedField> shardInfo(CommandContext ctx) {
         var shardInfo = ctx.event().getShardInfo();
         return Mono.just(new EmbedField(ctx.translate(Strings.GENERAL, "gateway_sharding_info"),
@@ -21,4 +21,46 @@ public interface MongoDBConfig {
     default String connectionString() {
         return "mongodb://localhost:27017";
     }
+
+    @Value.Default
+    @JsonProperty("in_query_chunk_size")
+    default int inQueryChunkSize() {
+        return 1000;
+    }
+
+    @Value.Default
+    @JsonProperty("in_query_concurrency")
+    default int inQueryConcurrency() {
+        return 4;
+    }
+
+    @Value.Default
+    @JsonProperty("leaderboard_aggregation")
+    default boolean leaderboardAggregation() {
+        return false;
+    }
+
+    @Value.Default
+    @JsonProperty("ban_refresh_interval_seconds")
+    default long banRefreshIntervalSeconds() {
+        return 600;
+    }
+
+    @Value.Default
+    @JsonProperty("stats_flush_size")
+    default int statsFlushSize() {
+        return 100;
+    }
+
+    @Value.Default
+    @JsonProperty("stats_flush_interval_seconds")
+    default long statsFlushIntervalSeconds() {
+        return 5;
+    }
+
+    @Value.Default
+    @JsonProperty("stats_max_pending")
+    default int statsMaxPending() {
+        return 10000;
+    }
 }
@@ -35,10 +35,79 @@ public interface UltimateGDBotConfig {
         @JsonProperty("icon_channel_id")
         Optional<Long> iconChannelId();
 
+        @Value.Default
+        @JsonProperty("icon_part_cache_max_bytes")
+        default long iconPartCacheMaxBytes() {
+            return 64 * 1024 * 1024;
+        }
+
+        @Value.Default
+        @JsonProperty("level_metadata_cache_max_size")
+        default int levelMetadataCacheMaxSize() {
+            return 2000;
+        }
+
+        @Value.Default
+        @JsonProperty("level_search_index_max_size")
+        default int levelSearchIndexMaxSize() {
+            return 200_000;
+        }
+
+        @Value.Default
+        @JsonProperty("level_analysis_max_bytes")
+        default long levelAnalysisMaxBytes() {
+            return 64 * 1024 * 1024;
+        }
+
+        @Value.Default
+        @JsonProperty("icon_png_compression_level")
+        default int iconPngCompressionLevel() {
+            return 6;
+        }
+
+        @JsonProperty("icon_server")
+        Optional<IconServer> iconServer();
+
+        @Value.Default
+        @JsonProperty("user_name_index_freshness_seconds")
+        default long userNameIndexFreshnessSeconds() {
+            return 86400;
+        }
+
+        @Value.Default
+        @JsonProperty("preload_sprites")
+        default boolean preloadSprites() {
+            return true;
+        }
+
         Client client();
 
         Events events();
 
+        @Value.Immutable
+        @JsonDeserialize(as = ImmutableIconServer.class)
+        interface IconServer {
+
+            @Value.Default
+            default String host() {
+                return "0.0.0.0";
+            }
+
+            int port();
+
+            @JsonProperty("public_url")
+            String publicUrl();
+
+            @JsonProperty("storage_directory")
+            String storageDirectory();
+
+            @Value.Default
+            @JsonProperty("max_bytes")
+            default long maxBytes() {
+                return 512 * 1024 * 1024;
+            }
+        }
+
         @Value.Immutable
         @JsonDeserialize(as = ImmutableClient.class)
         interface Client {
@@ -57,6 +126,30 @@ public interface UltimateGDBotConfig {
 
             @JsonProperty("request_limiter")
             Optional<Limiter> requestLimiter();
+
+            @JsonProperty("disk_cache")
+            Optional<DiskCache> diskCache();
+
+            @JsonProperty("cache_policies")
+            List<CachePolicy> cachePolicies();
+
+            @Value.Immutable
+            @JsonDeserialize(as = ImmutableCachePolicy.class)
+            interface CachePolicy {
+
+                String name();
+
+                List<String> endpoints();
+
+                @JsonProperty("ttl_seconds")
+                long ttlSeconds();
+
+                @Value.Default
+                @JsonProperty("max_size")
+                default long maxSize() {
+                    return 10_000;
+                }
+            }
         }
 
         @Value.Immutable
@@ -111,6 +204,25 @@ public interface UltimateGDBotConfig {
         }
     }
 
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableDiskCache.class)
+    interface DiskCache {
+
+        String directory();
+
+        @Value.Default
+        @JsonProperty("max_bytes")
+        default long maxBytes() {
+            return 256 * 1024 * 1024;
+        }
+
+        @Value.Default
+        @JsonProperty("compaction_interval_seconds")
+        default long compactionIntervalSeconds() {
+            return 600;
+        }
+    }
+
     @Value.Immutable
     @JsonDeserialize(as = ImmutableLimiter.class)
     interface Limiter {
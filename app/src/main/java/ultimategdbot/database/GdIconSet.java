@@ -0,0 +1,31 @@
+package ultimategdbot.database;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.criteria.Criteria;
+import org.immutables.criteria.reactor.ReactorReadable;
+import org.immutables.criteria.reactor.ReactorWritable;
+import org.immutables.value.Value;
+
+/**
+ * An icon set image that has already been rendered and uploaded to the icon channel, identified by a hash of the
+ * icons and colors it is made of.
+ */
+@Value.Immutable
+@Criteria
+@Criteria.Repository(facets = { ReactorReadable.class, ReactorWritable.class })
+@JsonSerialize(as = ImmutableGdIconSet.class)
+@JsonDeserialize(as = ImmutableGdIconSet.class)
+public interface GdIconSet {
+
+    @Criteria.Id
+    @JsonProperty("_id")
+    String hash();
+
+    long channelId();
+
+    long messageId();
+
+    String url();
+}
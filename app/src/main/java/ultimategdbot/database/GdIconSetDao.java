@@ -0,0 +1,28 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.backend.Backend;
+import org.immutables.criteria.backend.WriteResult;
+import reactor.core.publisher.Mono;
+
+import static ultimategdbot.database.GdIconSetCriteria.gdIconSet;
+
+public final class GdIconSetDao {
+
+    private final GdIconSetRepository repository;
+
+    public GdIconSetDao(Backend backend) {
+        this.repository = new GdIconSetRepository(backend);
+    }
+
+    public Mono<GdIconSet> get(String hash) {
+        return repository.find(gdIconSet.hash.is(hash)).oneOrNone();
+    }
+
+    public Mono<WriteResult> save(GdIconSet iconSet) {
+        return repository.upsert(iconSet);
+    }
+
+    public Mono<WriteResult> delete(String hash) {
+        return repository.delete(gdIconSet.hash.is(hash));
+    }
+}
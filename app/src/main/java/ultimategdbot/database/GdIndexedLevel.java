@@ -0,0 +1,32 @@
+package ultimategdbot.database;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.criteria.Criteria;
+import org.immutables.criteria.reactor.ReactorReadable;
+import org.immutables.criteria.reactor.ReactorWritable;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * A level seen by the bot, as stored in the local search index.
+ */
+@Value.Immutable
+@Criteria
+@Criteria.Repository(facets = { ReactorReadable.class, ReactorWritable.class })
+@JsonSerialize(as = ImmutableGdIndexedLevel.class)
+@JsonDeserialize(as = ImmutableGdIndexedLevel.class)
+public interface GdIndexedLevel {
+
+    @Criteria.Id
+    @JsonProperty("_id")
+    long levelId();
+
+    String name();
+
+    Optional<String> creatorName();
+
+    int stars();
+}
@@ -0,0 +1,45 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.backend.Backend;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+import static ultimategdbot.database.GdIndexedLevelCriteria.gdIndexedLevel;
+
+public final class GdIndexedLevelDao {
+
+    private final GdIndexedLevelRepository repository;
+
+    public GdIndexedLevelDao(Backend backend) {
+        this.repository = new GdIndexedLevelRepository(backend);
+    }
+
+    /**
+     * Gets indexed levels, rated levels with the most stars first, then the most recent levels.
+     *
+     * @param limit the maximum number of levels to get
+     * @return a Flux of indexed levels
+     */
+    public Flux<GdIndexedLevel> getMostRelevant(int limit) {
+        return repository.findAll()
+                .orderBy(gdIndexedLevel.stars.desc(), gdIndexedLevel.levelId.desc())
+                .limit(limit)
+                .fetch();
+    }
+
+    public Mono<Void> saveAll(Collection<GdIndexedLevel> levels) {
+        if (levels.isEmpty()) {
+            return Mono.empty();
+        }
+        return repository.upsertAll(levels).then();
+    }
+
+    public Mono<Void> deleteAll(Collection<Long> levelIds) {
+        if (levelIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return repository.delete(gdIndexedLevel.levelId.in(levelIds)).then();
+    }
+}
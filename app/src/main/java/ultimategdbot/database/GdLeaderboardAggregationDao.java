@@ -0,0 +1,123 @@
+package ultimategdbot.database;
+
+import com.mongodb.client.model.*;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.immutables.criteria.backend.ContainerNaming;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.mongodb.client.model.Filters.*;
+
+/**
+ * Computes leaderboards inside MongoDB by joining {@link GdLinkedUser} with {@link GdLeaderboard} in an aggregation
+ * pipeline, so that only the requested page is sent back to the bot. There is one entry per Discord user, so a GD
+ * account linked to several members of the guild appears once for each of them.
+ */
+public final class GdLeaderboardAggregationDao {
+
+    private static final Collation COLLATION = Collation.builder()
+            .locale("en")
+            .collationStrength(CollationStrength.SECONDARY)
+            .build();
+
+    private final MongoCollection<Document> linkedUsers;
+    private final String leaderboardCollection;
+
+    public GdLeaderboardAggregationDao(MongoDatabase database) {
+        this.linkedUsers = database.getCollection(ContainerNaming.DEFAULT.name(GdLinkedUser.class));
+        this.leaderboardCollection = ContainerNaming.DEFAULT.name(GdLeaderboard.class);
+    }
+
+    public Mono<Void> createIndexes() {
+        return Mono.from(linkedUsers.createIndex(Indexes.ascending("gdUserId"))).then();
+    }
+
+    public Mono<GdLeaderboardPage> getPage(List<Long> discordUserIds, GdLeaderboardStat stat, long[] excludedAccountIds,
+                                           int offset, int limit) {
+        final var pipeline = sortedEntries(discordUserIds, stat, excludedAccountIds);
+        pipeline.add(Aggregates.facet(
+                new Facet("total", Aggregates.count("count")),
+                new Facet("entries", Aggregates.skip(offset), Aggregates.limit(limit))));
+        return Mono.from(aggregate(pipeline))
+                .map(result -> {
+                    final var total = result.getList("total", Document.class);
+                    final var page = ImmutableGdLeaderboardPage.builder()
+                            .total(total.isEmpty() ? 0 : total.get(0).getInteger("count"));
+                    for (final var entry : result.getList("entries", Document.class)) {
+                        page.addEntries(ImmutableGdLeaderboardPageEntry.of(
+                                entry.get("_id", Number.class).longValue(), toRow(entry)));
+                    }
+                    return page.build();
+                });
+    }
+
+    /**
+     * Computes the zero-based rank of the first entry of the given account in the leaderboard, by counting the
+     * entries sorted ahead of it. Emits nothing if the account is not part of it.
+     */
+    public Mono<Integer> getRank(List<Long> discordUserIds, GdLeaderboardStat stat, long[] excludedAccountIds,
+                                 long accountId) {
+        final var self = sortedEntries(discordUserIds, stat, excludedAccountIds);
+        self.add(Aggregates.match(eq("accountId", accountId)));
+        self.add(Aggregates.limit(1));
+        return Mono.from(aggregate(self))
+                .flatMap(entry -> {
+                    final var value = entry.get("value", Number.class).intValue();
+                    final var name = entry.getString("name");
+                    final var discordUserId = entry.get("_id", Number.class).longValue();
+                    final var ahead = entries(discordUserIds, stat, excludedAccountIds);
+                    ahead.add(Aggregates.match(or(
+                            gt("value", value),
+                            and(eq("value", value), lt("name", name)),
+                            and(eq("value", value), eq("name", name), lt("_id", discordUserId)))));
+                    ahead.add(Aggregates.count("count"));
+                    return Mono.from(aggregate(ahead))
+                            .map(result -> result.getInteger("count"))
+                            .defaultIfEmpty(0);
+                });
+    }
+
+    /*
+     * Entries are sorted by value, then by name ignoring case, then by Discord user ID, the same order as the one used
+     * when the leaderboard is computed by the bot.
+     */
+    private List<Bson> sortedEntries(List<Long> discordUserIds, GdLeaderboardStat stat, long[] excludedAccountIds) {
+        final var pipeline = entries(discordUserIds, stat, excludedAccountIds);
+        pipeline.add(Aggregates.sort(Sorts.orderBy(Sorts.descending("value"), Sorts.ascending("name"),
+                Sorts.ascending("_id"))));
+        return pipeline;
+    }
+
+    private List<Bson> entries(List<Long> discordUserIds, GdLeaderboardStat stat, long[] excludedAccountIds) {
+        final var pipeline = new ArrayList<Bson>();
+        pipeline.add(Aggregates.match(in("_id", discordUserIds)));
+        if (excludedAccountIds.length > 0) {
+            pipeline.add(Aggregates.match(nin("gdUserId", Arrays.stream(excludedAccountIds).boxed()
+                    .collect(Collectors.toList()))));
+        }
+        pipeline.add(Aggregates.lookup(leaderboardCollection, "gdUserId", "_id", "stats"));
+        pipeline.add(Aggregates.unwind("$stats"));
+        pipeline.add(Aggregates.project(Projections.fields(
+                Projections.computed("accountId", "$gdUserId"),
+                Projections.computed("name", "$stats.name"),
+                Projections.computed("value", "$stats." + stat.fieldName()))));
+        return pipeline;
+    }
+
+    private Publisher<Document> aggregate(List<Bson> pipeline) {
+        return linkedUsers.aggregate(pipeline).collation(COLLATION).allowDiskUse(true);
+    }
+
+    private static GdLeaderboardRow toRow(Document document) {
+        return ImmutableGdLeaderboardRow.of(document.get("accountId", Number.class).longValue(),
+                document.getString("name"), document.get("value", Number.class).intValue());
+    }
+}
@@ -5,31 +5,54 @@ import org.immutables.criteria.backend.WriteResult;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
-
 import static ultimategdbot.database.GdLeaderboardBanCriteria.gdLeaderboardBan;
 
 public final class GdLeaderboardBanDao {
 
     private final GdLeaderboardBanRepository repository;
+    private final GdLeaderboardBanSet banSet;
 
-    public GdLeaderboardBanDao(Backend backend) {
+    public GdLeaderboardBanDao(Backend backend, GdLeaderboardBanSet banSet) {
         this.repository = new GdLeaderboardBanRepository(backend);
+        this.banSet = banSet;
     }
 
-    public Flux<GdLeaderboardBan> getAll() {
-        return repository.findAll().fetch();
+    /**
+     * Gets the in-memory set of banned accounts, loading it from the database on first access. The returned set is
+     * kept up to date by {@link #save(GdLeaderboardBan)} and {@link #delete(long)}, and by {@link #refreshBanSet()}
+     * for changes made by other instances of the bot.
+     */
+    public Mono<GdLeaderboardBanSet> getBanSet() {
+        return banSet.isLoaded() ? Mono.just(banSet) : refreshBanSet();
     }
 
-    public Flux<GdLeaderboardBan> getAllIn(List<Long> gdUserIds) {
-        return repository.find(gdLeaderboardBan.accountId.in(gdUserIds)).fetch();
+    /**
+     * Reloads the set of banned accounts from the database. If a ban is saved or deleted while the bans are being
+     * read, the result may not reflect it, so it is discarded and the bans are read again.
+     */
+    public Mono<GdLeaderboardBanSet> refreshBanSet() {
+        return Mono.defer(() -> {
+            final var generation = banSet.writeGeneration();
+            return getAll()
+                    .map(GdLeaderboardBan::accountId)
+                    .collectList()
+                    .filter(ids -> banSet.replaceIfUnchanged(ids.stream().mapToLong(Long::longValue).toArray(),
+                            generation))
+                    .map(ids -> banSet);
+        }).switchIfEmpty(Mono.defer(this::refreshBanSet));
+    }
+
+    public Flux<GdLeaderboardBan> getAll() {
+        return repository.findAll().fetch();
     }
 
     public Mono<WriteResult> save(GdLeaderboardBan ban) {
-        return repository.upsert(ban);
+        return repository.upsert(ban)
+                .doOnNext(result -> banSet.add(ban.accountId()));
     }
 
     public Mono<WriteResult> delete(long accountId) {
-        return repository.delete(gdLeaderboardBan.accountId.is(accountId));
+        return repository.delete(gdLeaderboardBan.accountId.is(accountId))
+                .doOnNext(result -> banSet.remove(accountId));
     }
 }
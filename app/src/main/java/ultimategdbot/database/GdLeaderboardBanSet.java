@@ -0,0 +1,96 @@
+package ultimategdbot.database;
+
+import java.util.Arrays;
+
+/**
+ * In-memory copy of the account IDs stored in the {@link GdLeaderboardBan} collection, kept as a sorted array of
+ * primitive longs. Reads are lock-free; writes replace the array atomically.
+ *
+ * <p>Every ban or unban bumps a write generation, even before the set is loaded, so that a reload whose read raced
+ * with a write can be detected and discarded instead of bringing back stale contents.</p>
+ */
+public final class GdLeaderboardBanSet {
+
+    private volatile long[] accountIds;
+    private long writeGeneration;
+
+    GdLeaderboardBanSet() {
+    }
+
+    public boolean contains(long accountId) {
+        return Arrays.binarySearch(loadedIds(), accountId) >= 0;
+    }
+
+    public long[] toArray() {
+        return loadedIds().clone();
+    }
+
+    public int size() {
+        return loadedIds().length;
+    }
+
+    boolean isLoaded() {
+        return accountIds != null;
+    }
+
+    synchronized long writeGeneration() {
+        return writeGeneration;
+    }
+
+    /**
+     * Replaces the contents of the set, unless a write happened since the given generation was read.
+     *
+     * @return whether the contents were replaced
+     */
+    synchronized boolean replaceIfUnchanged(long[] accountIds, long expectedGeneration) {
+        if (writeGeneration != expectedGeneration) {
+            return false;
+        }
+        final var copy = accountIds.clone();
+        Arrays.sort(copy);
+        this.accountIds = copy;
+        return true;
+    }
+
+    synchronized void add(long accountId) {
+        writeGeneration++;
+        if (!isLoaded()) {
+            return;
+        }
+        final var ids = loadedIds();
+        final var index = Arrays.binarySearch(ids, accountId);
+        if (index >= 0) {
+            return;
+        }
+        final var insertAt = -index - 1;
+        final var copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = accountId;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        this.accountIds = copy;
+    }
+
+    synchronized void remove(long accountId) {
+        writeGeneration++;
+        if (!isLoaded()) {
+            return;
+        }
+        final var ids = loadedIds();
+        final var index = Arrays.binarySearch(ids, accountId);
+        if (index < 0) {
+            return;
+        }
+        final var copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, index);
+        System.arraycopy(ids, index + 1, copy, index, ids.length - index - 1);
+        this.accountIds = copy;
+    }
+
+    private long[] loadedIds() {
+        final var ids = accountIds;
+        if (ids == null) {
+            throw new IllegalStateException("Ban set not loaded yet");
+        }
+        return ids;
+    }
+}
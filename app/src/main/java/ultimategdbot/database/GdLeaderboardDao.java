@@ -6,35 +6,71 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static ultimategdbot.database.GdLeaderboardCriteria.gdLeaderboard;
 
 public final class GdLeaderboardDao {
 
     private final GdLeaderboardRepository repository;
+    private final InQueryChunker chunker;
+    private final GdLeaderboardWriteBuffer writeBuffer;
 
-    public GdLeaderboardDao(Backend backend) {
+    public GdLeaderboardDao(Backend backend, InQueryChunker chunker, GdLeaderboardWriteBuffer writeBuffer) {
         this.repository = new GdLeaderboardRepository(backend);
+        this.chunker = chunker;
+        this.writeBuffer = writeBuffer;
     }
 
+    /**
+     * Queues the stats of the user to be saved. This does not wait for the database, the write happens in the
+     * background along with other pending stats.
+     */
     public Mono<GDUserStats> saveStats(GDUserStats userStats) {
-        return repository
-                .upsert(ImmutableGdLeaderboard.builder()
-                        .accountId(userStats.accountId())
-                        .name(userStats.name())
-                        .lastRefreshed(Instant.now())
-                        .stars(userStats.stars())
-                        .diamonds(userStats.diamonds())
-                        .userCoins(userStats.userCoins())
-                        .secretCoins(userStats.secretCoins())
-                        .demons(userStats.demons())
-                        .creatorPoints(userStats.creatorPoints())
-                        .build())
-                .thenReturn(userStats);
+        return Mono.fromCallable(() -> {
+            writeBuffer.submit(toEntity(userStats, Instant.now()));
+            return userStats;
+        });
     }
 
-    public Flux<GdLeaderboard> getAllIn(List<Long> gdUserIds) {
-        return repository.find(gdLeaderboard.accountId.in(gdUserIds)).fetch();
+    /**
+     * Queues the stats of several users to be saved, and requests them to be written as soon as possible in a single
+     * bulk write.
+     */
+    public Mono<Void> saveAllStats(Collection<? extends GDUserStats> userStats) {
+        if (userStats.isEmpty()) {
+            return Mono.empty();
+        }
+        final var now = Instant.now();
+        return Mono.fromRunnable(() -> writeBuffer.submitAll(userStats.stream()
+                .map(stats -> toEntity(stats, now))
+                .collect(Collectors.toList())));
+    }
+
+    private static GdLeaderboard toEntity(GDUserStats userStats, Instant lastRefreshed) {
+        return ImmutableGdLeaderboard.builder()
+                .accountId(userStats.accountId())
+                .name(userStats.name())
+                .lastRefreshed(lastRefreshed)
+                .stars(userStats.stars())
+                .diamonds(userStats.diamonds())
+                .userCoins(userStats.userCoins())
+                .secretCoins(userStats.secretCoins())
+                .demons(userStats.demons())
+                .creatorPoints(userStats.creatorPoints())
+                .build();
+    }
+
+    public Flux<GdLeaderboard> getAllSortedByAccountId() {
+        return repository.findAll().orderBy(gdLeaderboard.accountId.asc()).fetch();
+    }
+
+    public Flux<GdLeaderboardRow> getStatIn(List<Long> gdUserIds, GdLeaderboardStat stat) {
+        return chunker.fetch(gdUserIds, chunk -> repository.find(gdLeaderboard.accountId.in(chunk))
+                .select(gdLeaderboard.accountId, gdLeaderboard.name, stat.projection())
+                .map((accountId, name, value) -> ImmutableGdLeaderboardRow.of(accountId, name, value))
+                .fetch());
     }
 }
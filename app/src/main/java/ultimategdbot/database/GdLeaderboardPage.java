@@ -0,0 +1,17 @@
+package ultimategdbot.database;
+
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * A single page of a leaderboard computed by {@link GdLeaderboardAggregationDao}, along with the total number of
+ * entries across all pages.
+ */
+@Value.Immutable
+public interface GdLeaderboardPage {
+
+    int total();
+
+    List<GdLeaderboardPageEntry> entries();
+}
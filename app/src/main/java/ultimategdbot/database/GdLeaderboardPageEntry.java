@@ -0,0 +1,13 @@
+package ultimategdbot.database;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface GdLeaderboardPageEntry {
+
+    @Value.Parameter
+    long discordUserId();
+
+    @Value.Parameter
+    GdLeaderboardRow row();
+}
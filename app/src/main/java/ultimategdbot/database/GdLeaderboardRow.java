@@ -0,0 +1,19 @@
+package ultimategdbot.database;
+
+import org.immutables.value.Value;
+
+/**
+ * A projection of {@link GdLeaderboard} that only holds the value of a single {@link GdLeaderboardStat}.
+ */
+@Value.Immutable
+public interface GdLeaderboardRow {
+
+    @Value.Parameter
+    long accountId();
+
+    @Value.Parameter
+    String name();
+
+    @Value.Parameter
+    int value();
+}
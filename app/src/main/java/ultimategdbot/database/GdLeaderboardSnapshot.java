@@ -0,0 +1,57 @@
+package ultimategdbot.database;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.criteria.Criteria;
+import org.immutables.criteria.reactor.ReactorReadable;
+import org.immutables.criteria.reactor.ReactorWritable;
+import org.immutables.value.Value;
+
+/**
+ * One chunk of a daily snapshot of {@link GdLeaderboard}, stored in columnar form. Account IDs are sorted, and the
+ * differences between consecutive IDs are packed as variable-length integers into a binary field. Each stat is stored
+ * as its own column, in the same order as the account IDs.
+ *
+ * <p>Each save of a day's snapshot writes its chunks under a new generation. The chunks only become visible once all
+ * of them are written and marked with the total number of chunks, and older generations are deleted afterwards.</p>
+ */
+@Value.Immutable
+@Criteria
+@Criteria.Repository(facets = { ReactorReadable.class, ReactorWritable.class })
+@JsonSerialize(as = ImmutableGdLeaderboardSnapshot.class)
+@JsonDeserialize(as = ImmutableGdLeaderboardSnapshot.class)
+public interface GdLeaderboardSnapshot {
+
+    @Criteria.Id
+    @JsonProperty("_id")
+    String id();
+
+    long epochDay();
+
+    long generation();
+
+    int chunk();
+
+    /**
+     * @return the number of chunks of the generation, or 0 while the generation is still being written
+     */
+    @Value.Default
+    default int chunkCount() {
+        return 0;
+    }
+
+    byte[] accountIds();
+
+    int[] stars();
+
+    int[] diamonds();
+
+    int[] userCoins();
+
+    int[] secretCoins();
+
+    int[] demons();
+
+    int[] creatorPoints();
+}
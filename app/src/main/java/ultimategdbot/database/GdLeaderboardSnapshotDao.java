@@ -0,0 +1,175 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.backend.Backend;
+import org.immutables.criteria.backend.WriteResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static reactor.function.TupleUtils.function;
+import static ultimategdbot.database.GdLeaderboardSnapshotCriteria.gdLeaderboardSnapshot;
+
+public final class GdLeaderboardSnapshotDao {
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final GdLeaderboardSnapshotRepository repository;
+
+    public GdLeaderboardSnapshotDao(Backend backend) {
+        this.repository = new GdLeaderboardSnapshotRepository(backend);
+    }
+
+    private static GdLeaderboardSnapshot encode(LocalDate day, long generation, int chunk,
+                                                List<GdLeaderboard> rows) {
+        final var size = rows.size();
+        final var accountIds = new ByteArrayOutputStream(size * 2);
+        final var columns = new int[GdLeaderboardStat.values().length][size];
+        var previousId = 0L;
+        for (var i = 0; i < size; i++) {
+            final var row = rows.get(i);
+            writeVarint(accountIds, row.accountId() - previousId);
+            previousId = row.accountId();
+            for (final var stat : GdLeaderboardStat.values()) {
+                columns[stat.ordinal()][i] = stat.get(row);
+            }
+        }
+        return ImmutableGdLeaderboardSnapshot.builder()
+                .id(day.toEpochDay() + "-" + generation + "-" + chunk)
+                .epochDay(day.toEpochDay())
+                .generation(generation)
+                .chunk(chunk)
+                .accountIds(accountIds.toByteArray())
+                .stars(columns[GdLeaderboardStat.STARS.ordinal()])
+                .diamonds(columns[GdLeaderboardStat.DIAMONDS.ordinal()])
+                .userCoins(columns[GdLeaderboardStat.USER_COINS.ordinal()])
+                .secretCoins(columns[GdLeaderboardStat.SECRET_COINS.ordinal()])
+                .demons(columns[GdLeaderboardStat.DEMONS.ordinal()])
+                .creatorPoints(columns[GdLeaderboardStat.CREATOR_POINTS.ordinal()])
+                .build();
+    }
+
+    private static LeaderboardSnapshot decode(LocalDate day, List<GdLeaderboardSnapshot> chunks) {
+        final var size = chunks.stream().mapToInt(chunk -> chunk.stars().length).sum();
+        final var accountIds = new long[size];
+        final var columns = new int[GdLeaderboardStat.values().length][];
+        for (final var stat : GdLeaderboardStat.values()) {
+            columns[stat.ordinal()] = new int[size];
+        }
+        var offset = 0;
+        for (final var chunk : chunks) {
+            final var packedDeltas = chunk.accountIds();
+            final var count = chunk.stars().length;
+            var position = 0;
+            var previousId = 0L;
+            for (var i = 0; i < count; i++) {
+                var delta = 0L;
+                var shift = 0;
+                byte b;
+                do {
+                    b = packedDeltas[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                previousId += delta;
+                accountIds[offset + i] = previousId;
+            }
+            copyColumn(chunk.stars(), columns, GdLeaderboardStat.STARS, offset);
+            copyColumn(chunk.diamonds(), columns, GdLeaderboardStat.DIAMONDS, offset);
+            copyColumn(chunk.userCoins(), columns, GdLeaderboardStat.USER_COINS, offset);
+            copyColumn(chunk.secretCoins(), columns, GdLeaderboardStat.SECRET_COINS, offset);
+            copyColumn(chunk.demons(), columns, GdLeaderboardStat.DEMONS, offset);
+            copyColumn(chunk.creatorPoints(), columns, GdLeaderboardStat.CREATOR_POINTS, offset);
+            offset += count;
+        }
+        return new LeaderboardSnapshot(day, accountIds, columns);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static void copyColumn(int[] source, int[][] columns, GdLeaderboardStat stat, int offset) {
+        System.arraycopy(source, 0, columns[stat.ordinal()], offset, source.length);
+    }
+
+    /**
+     * Saves the snapshot of the given day, replacing any previous snapshot of the same day. The previous snapshot
+     * stays readable until the new one is completely written.
+     *
+     * @param day  the day of the snapshot
+     * @param rows the leaderboard rows, sorted by account ID
+     * @return a Mono completing when the snapshot is saved
+     */
+    public Mono<Void> save(LocalDate day, Flux<GdLeaderboard> rows) {
+        return Mono.defer(() -> {
+            final var generation = System.currentTimeMillis();
+            return rows.buffer(CHUNK_SIZE)
+                    .index()
+                    .concatMap(function((chunk, chunkRows) -> repository.insert(
+                            encode(day, generation, chunk.intValue(), chunkRows))))
+                    .count()
+                    .filter(chunkCount -> chunkCount > 0)
+                    .flatMap(chunkCount -> repository
+                            .update(gdLeaderboardSnapshot.epochDay.is(day.toEpochDay())
+                                    .and(gdLeaderboardSnapshot.generation.is(generation)))
+                            .set(gdLeaderboardSnapshot.chunkCount, chunkCount.intValue())
+                            .execute())
+                    .then(repository.delete(gdLeaderboardSnapshot.epochDay.is(day.toEpochDay())
+                            .and(gdLeaderboardSnapshot.generation.lessThan(generation))))
+                    .then();
+        });
+    }
+
+    /**
+     * Gets the latest complete snapshot of the given day.
+     *
+     * @param day the day of the snapshot
+     * @return the snapshot, or empty if there is no complete snapshot for that day
+     */
+    public Mono<LeaderboardSnapshot> get(LocalDate day) {
+        return repository.find(gdLeaderboardSnapshot.epochDay.is(day.toEpochDay())
+                        .and(gdLeaderboardSnapshot.chunkCount.greaterThan(0)))
+                .orderBy(gdLeaderboardSnapshot.generation.desc(), gdLeaderboardSnapshot.chunk.asc())
+                .fetch()
+                .collectList()
+                .flatMap(chunks -> Mono.justOrEmpty(latestCompleteGeneration(chunks)))
+                .map(chunks -> decode(day, chunks));
+    }
+
+    public Mono<Boolean> exists(LocalDate day) {
+        return get(day).hasElement();
+    }
+
+    /*
+     * The chunk count is set on each chunk of a generation one document at a time, so a generation is only complete
+     * once all its chunks carry it.
+     */
+    private static Optional<List<GdLeaderboardSnapshot>> latestCompleteGeneration(List<GdLeaderboardSnapshot> chunks) {
+        var start = 0;
+        while (start < chunks.size()) {
+            final var generation = chunks.get(start).generation();
+            var end = start;
+            while (end < chunks.size() && chunks.get(end).generation() == generation) {
+                end++;
+            }
+            final var group = chunks.subList(start, end);
+            if (group.size() == group.get(0).chunkCount()) {
+                return Optional.of(group);
+            }
+            start = end;
+        }
+        return Optional.empty();
+    }
+
+    public Mono<WriteResult> deleteOlderThan(LocalDate day) {
+        return repository.delete(gdLeaderboardSnapshot.epochDay.lessThan(day.toEpochDay()));
+    }
+}
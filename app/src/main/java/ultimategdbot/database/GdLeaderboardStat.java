@@ -0,0 +1,38 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.matcher.Projection;
+
+import java.util.function.ToIntFunction;
+
+import static ultimategdbot.database.GdLeaderboardCriteria.gdLeaderboard;
+
+public enum GdLeaderboardStat {
+    STARS("stars", gdLeaderboard.stars, GdLeaderboard::stars),
+    DIAMONDS("diamonds", gdLeaderboard.diamonds, GdLeaderboard::diamonds),
+    USER_COINS("userCoins", gdLeaderboard.userCoins, GdLeaderboard::userCoins),
+    SECRET_COINS("secretCoins", gdLeaderboard.secretCoins, GdLeaderboard::secretCoins),
+    DEMONS("demons", gdLeaderboard.demons, GdLeaderboard::demons),
+    CREATOR_POINTS("creatorPoints", gdLeaderboard.creatorPoints, GdLeaderboard::creatorPoints);
+
+    private final String fieldName;
+    private final Projection<Integer> projection;
+    private final ToIntFunction<GdLeaderboard> getter;
+
+    GdLeaderboardStat(String fieldName, Projection<Integer> projection, ToIntFunction<GdLeaderboard> getter) {
+        this.fieldName = fieldName;
+        this.projection = projection;
+        this.getter = getter;
+    }
+
+    String fieldName() {
+        return fieldName;
+    }
+
+    Projection<Integer> projection() {
+        return projection;
+    }
+
+    public int get(GdLeaderboard leaderboard) {
+        return getter.applyAsInt(leaderboard);
+    }
+}
@@ -0,0 +1,113 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.backend.Backend;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for {@link GdLeaderboard} entries. Only the latest entry of each account is kept, and pending
+ * entries are written with a single bulk write when the buffer reaches a certain size, on a fixed interval, and when
+ * the JVM shuts down. Flushes never run concurrently, so an older entry can never overwrite a newer one. On shutdown,
+ * the interval is stopped, the flush in progress is awaited and the remaining entries are flushed one last time.
+ *
+ * <p>Entries of a failed flush are put back into the buffer unless a newer entry was submitted in the meantime, and
+ * are retried with the next flush. While the database is unavailable, the buffer stops accepting entries for new
+ * accounts once it holds the maximum number of pending entries, and those entries are dropped.</p>
+ */
+public final class GdLeaderboardWriteBuffer {
+
+    private static final Logger LOGGER = Loggers.getLogger(GdLeaderboardWriteBuffer.class);
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private final GdLeaderboardRepository repository;
+    private final int flushSize;
+    private final int maxPending;
+    private final ConcurrentHashMap<Long, GdLeaderboard> pending = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Sinks.Many<Boolean> flushRequests = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Empty<Void> shutdown = Sinks.empty();
+    private final Sinks.Empty<Void> stopped = Sinks.empty();
+
+    public GdLeaderboardWriteBuffer(Backend backend, int flushSize, int maxPending, Duration flushInterval) {
+        this.repository = new GdLeaderboardRepository(backend);
+        this.flushSize = flushSize;
+        this.maxPending = maxPending;
+        // When a flush is slow, extra ticks and requests are dropped instead of overflowing, a later flush picks up
+        // the pending entries anyway
+        Flux.merge(flushRequests.asFlux().onBackpressureDrop(),
+                        Flux.interval(flushInterval, flushInterval)
+                                .onBackpressureDrop()
+                                .takeUntilOther(shutdown.asMono()))
+                .concatMap(tick -> safeFlush(), 1)
+                // Runs once both sources completed, after the flush that was in progress if any
+                .concatWith(Mono.defer(this::safeFlush))
+                .doOnError(e -> LOGGER.error("Leaderboard stats flush loop failed, restarting it", e))
+                .retry()
+                .doFinally(signal -> stopped.tryEmitEmpty())
+                .subscribe();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            shutdown.tryEmitEmpty();
+            flushRequests.tryEmitComplete();
+            stopped.asMono().block(SHUTDOWN_FLUSH_TIMEOUT);
+        }));
+    }
+
+    void submit(GdLeaderboard entry) {
+        put(entry);
+        if (pending.size() >= flushSize) {
+            // If the emission fails, a flush is already in progress or the next tick will pick the entries up
+            flushRequests.tryEmitNext(true);
+        }
+    }
+
+    void submitAll(Collection<GdLeaderboard> entries) {
+        entries.forEach(this::put);
+        flushRequests.tryEmitNext(true);
+    }
+
+    private void put(GdLeaderboard entry) {
+        // Accounts that are already pending are always updated, they don't make the buffer grow
+        if (pending.size() >= maxPending && !pending.containsKey(entry.accountId())) {
+            dropped.incrementAndGet();
+            return;
+        }
+        pending.put(entry.accountId(), entry);
+    }
+
+    private Mono<Void> safeFlush() {
+        return flush()
+                .doOnError(e -> LOGGER.error("Failed to flush leaderboard stats", e))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<Void> flush() {
+        return Mono.defer(() -> {
+            final var batch = new ArrayList<GdLeaderboard>();
+            for (final var accountId : pending.keySet()) {
+                final var entry = pending.remove(accountId);
+                if (entry != null) {
+                    batch.add(entry);
+                }
+            }
+            final var droppedCount = dropped.getAndSet(0);
+            if (droppedCount > 0) {
+                LOGGER.warn("Dropped {} leaderboard entries because the write buffer was full", droppedCount);
+            }
+            if (batch.isEmpty()) {
+                return Mono.empty();
+            }
+            return repository.upsertAll(batch)
+                    .then()
+                    .doOnError(e -> batch.forEach(entry -> pending.putIfAbsent(entry.accountId(), entry)));
+        });
+    }
+}
@@ -12,9 +12,11 @@ import static ultimategdbot.database.GdLinkedUserCriteria.gdLinkedUser;
 public final class GdLinkedUserDao {
 
     private final GdLinkedUserRepository repository;
+    private final InQueryChunker chunker;
 
-    public GdLinkedUserDao(Backend backend) {
+    public GdLinkedUserDao(Backend backend, InQueryChunker chunker) {
         this.repository = new GdLinkedUserRepository(backend);
+        this.chunker = chunker;
     }
 
     public Flux<Long> getDiscordAccountsForGDUser(long gdUserId) {
@@ -35,7 +37,7 @@ public final class GdLinkedUserDao {
     }
 
     public Flux<GdLinkedUser> getAllIn(List<Long> discordUserIds) {
-        return repository.find(gdLinkedUser.discordUserId.in(discordUserIds)).fetch();
+        return chunker.fetch(discordUserIds, chunk -> repository.find(gdLinkedUser.discordUserId.in(chunk)).fetch());
     }
 
     public Mono<WriteResult> save(GdLinkedUser linkedUser) {
@@ -0,0 +1,46 @@
+package ultimategdbot.database;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.criteria.Criteria;
+import org.immutables.criteria.reactor.ReactorReadable;
+import org.immutables.criteria.reactor.ReactorWritable;
+import org.immutables.value.Value;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Cached information on a custom song. Songs that are banned or that could not be found are stored as well, without
+ * title nor artist, so that they don't need to be requested again.
+ */
+@Value.Immutable
+@Criteria
+@Criteria.Repository(facets = { ReactorReadable.class, ReactorWritable.class })
+@JsonSerialize(as = ImmutableGdSong.class)
+@JsonDeserialize(as = ImmutableGdSong.class)
+public interface GdSong {
+
+    @Criteria.Id
+    @JsonProperty("_id")
+    long songId();
+
+    Optional<String> title();
+
+    Optional<String> artist();
+
+    Optional<String> size();
+
+    Optional<String> downloadUrl();
+
+    boolean isCustom();
+
+    boolean isBanned();
+
+    Instant cachedAt();
+
+    default boolean isKnown() {
+        return title().isPresent();
+    }
+}
@@ -0,0 +1,33 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.backend.Backend;
+import org.immutables.criteria.backend.WriteResult;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+import static ultimategdbot.database.GdSongCriteria.gdSong;
+
+public final class GdSongDao {
+
+    private final GdSongRepository repository;
+
+    public GdSongDao(Backend backend) {
+        this.repository = new GdSongRepository(backend);
+    }
+
+    public Mono<GdSong> get(long songId) {
+        return repository.find(gdSong.songId.is(songId)).oneOrNone();
+    }
+
+    public Mono<WriteResult> save(GdSong song) {
+        return repository.upsert(song);
+    }
+
+    public Mono<Void> saveAll(Collection<GdSong> songs) {
+        if (songs.isEmpty()) {
+            return Mono.empty();
+        }
+        return repository.upsertAll(songs).then();
+    }
+}
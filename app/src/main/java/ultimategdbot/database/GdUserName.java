@@ -0,0 +1,31 @@
+package ultimategdbot.database;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.criteria.Criteria;
+import org.immutables.criteria.reactor.ReactorReadable;
+import org.immutables.criteria.reactor.ReactorWritable;
+import org.immutables.value.Value;
+
+import java.time.Instant;
+
+/**
+ * Associates the lowercase name of a GD user to their account ID, so that users can be looked up by name without
+ * searching them on the GD servers.
+ */
+@Value.Immutable
+@Criteria
+@Criteria.Repository(facets = { ReactorReadable.class, ReactorWritable.class })
+@JsonSerialize(as = ImmutableGdUserName.class)
+@JsonDeserialize(as = ImmutableGdUserName.class)
+public interface GdUserName {
+
+    @Criteria.Id
+    @JsonProperty("_id")
+    String lowercaseName();
+
+    long accountId();
+
+    Instant lastUpdated();
+}
@@ -0,0 +1,30 @@
+package ultimategdbot.database;
+
+import org.immutables.criteria.backend.Backend;
+import org.immutables.criteria.backend.WriteResult;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static ultimategdbot.database.GdUserNameCriteria.gdUserName;
+
+public final class GdUserNameDao {
+
+    private final GdUserNameRepository repository;
+
+    public GdUserNameDao(Backend backend) {
+        this.repository = new GdUserNameRepository(backend);
+    }
+
+    public Mono<GdUserName> get(String name) {
+        return repository.find(gdUserName.lowercaseName.is(name.toLowerCase())).oneOrNone();
+    }
+
+    public Mono<WriteResult> save(String name, long accountId) {
+        return repository.upsert(ImmutableGdUserName.builder()
+                .lowercaseName(name.toLowerCase())
+                .accountId(accountId)
+                .lastUpdated(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,36 @@
+package ultimategdbot.database;
+
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Splits queries using the <code>$in</code> operator into several smaller queries of a fixed size, runs them in
+ * parallel and merges their results as a single stream.
+ */
+public final class InQueryChunker {
+
+    private final int chunkSize;
+    private final int concurrency;
+
+    public InQueryChunker(int chunkSize, int concurrency) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+    }
+
+    <T> Flux<T> fetch(List<Long> ids, Function<? super List<Long>, ? extends Flux<T>> query) {
+        if (ids.size() <= chunkSize) {
+            return query.apply(ids);
+        }
+        return Flux.fromIterable(ids)
+                .buffer(chunkSize)
+                .flatMap(query, concurrency);
+    }
+}
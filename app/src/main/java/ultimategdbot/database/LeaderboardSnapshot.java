@@ -0,0 +1,70 @@
+package ultimategdbot.database;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The decoded content of all {@link GdLeaderboardSnapshot} chunks of a given day.
+ */
+public final class LeaderboardSnapshot {
+
+    private final LocalDate day;
+    private final long[] accountIds;
+    private final int[][] columns;
+
+    LeaderboardSnapshot(LocalDate day, long[] accountIds, int[][] columns) {
+        this.day = day;
+        this.accountIds = accountIds;
+        this.columns = columns;
+    }
+
+    /**
+     * Computes the difference of the given stat between two snapshots, for each of the given accounts. Accounts
+     * that are missing from either snapshot have a difference of 0.
+     *
+     * @param newer      the most recent snapshot
+     * @param older      the oldest snapshot
+     * @param accountIds the accounts to compute the difference for
+     * @param stat       the stat to compare
+     * @return an array of the same length as accountIds, with the difference for each account at the same index
+     */
+    public static int[] delta(LeaderboardSnapshot newer, LeaderboardSnapshot older, long[] accountIds,
+                              GdLeaderboardStat stat) {
+        final var present = new boolean[accountIds.length];
+        Arrays.fill(present, true);
+        final var after = newer.align(accountIds, stat, present);
+        final var before = older.align(accountIds, stat, present);
+        final var delta = new int[accountIds.length];
+        for (var i = 0; i < delta.length; i++) {
+            delta[i] = after[i] - before[i];
+        }
+        for (var i = 0; i < delta.length; i++) {
+            if (!present[i]) {
+                delta[i] = 0;
+            }
+        }
+        return delta;
+    }
+
+    public LocalDate day() {
+        return day;
+    }
+
+    public int size() {
+        return accountIds.length;
+    }
+
+    private int[] align(long[] ids, GdLeaderboardStat stat, boolean[] present) {
+        final var column = columns[stat.ordinal()];
+        final var aligned = new int[ids.length];
+        for (var i = 0; i < ids.length; i++) {
+            final var index = Arrays.binarySearch(accountIds, ids[i]);
+            if (index < 0) {
+                present[i] = false;
+            } else {
+                aligned[i] = column[index];
+            }
+        }
+        return aligned;
+    }
+}
@@ -26,6 +26,7 @@ import ultimategdbot.service.DatabaseService;
 import ultimategdbot.service.DefaultTranslator;
 import ultimategdbot.service.GDLevelService;
 import ultimategdbot.service.GDUserService;
+import ultimategdbot.service.LevelSearchIndex;
 import ultimategdbot.util.EmbedType;
 
 import java.time.Duration;
@@ -43,6 +44,7 @@ public final class GDEventService {
 
     private final GDClient gdClient;
     private final GDLevelService levelService;
+    private final LevelSearchIndex searchIndex;
     private final GDUserService userService;
     private final DatabaseService db;
     private final GatewayDiscordClient gateway;
@@ -175,9 +177,10 @@ public final class GDEventService {
     @RdiFactory
     public GDEventService(GDClient gdClient, GDLevelService levelService, GDUserService userService,
                           ConfigContainer configContainer, DatabaseService db, GatewayDiscordClient gateway,
-                          DefaultTranslator tr, ManualEventProducer eventProducer) {
+                          DefaultTranslator tr, ManualEventProducer eventProducer, LevelSearchIndex searchIndex) {
         this.gdClient = gdClient;
         this.levelService = levelService;
+        this.searchIndex = searchIndex;
         this.userService = userService;
         this.db = db;
         this.gateway = gateway;
@@ -221,6 +224,13 @@ public final class GDEventService {
     }
 
     public Mono<Void> process(Object event) {
+        if (event instanceof AwardedAdd) {
+            searchIndex.index(((AwardedAdd) event).addedLevel());
+        } else if (event instanceof AwardedUpdate) {
+            searchIndex.index(((AwardedUpdate) event).newData());
+        } else if (event instanceof DailyLevelChange || event instanceof WeeklyDemonChange) {
+            levelService.refreshTimely(event instanceof WeeklyDemonChange);
+        }
         final var gdEvent = events.get(event.getClass()).orElse(null);
         if (gdEvent == null) {
             LOGGER.warn("Unrecognized event type: {}", event.getClass().getName());
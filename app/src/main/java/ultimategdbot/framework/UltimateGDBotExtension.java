@@ -8,11 +8,11 @@ import com.github.alex1304.rdi.config.ServiceDescriptor;
 import discord4j.core.GatewayDiscordClient;
 import discord4j.core.object.entity.ApplicationInfo;
 import jdash.client.GDClient;
-import jdash.graphics.SpriteFactory;
 import reactor.core.publisher.Mono;
 import ultimategdbot.command.SetupCommand;
 import ultimategdbot.command.SetupEntry;
 import ultimategdbot.service.ExternalServices;
+import ultimategdbot.service.GDClientCache;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -54,10 +54,7 @@ public final class UltimateGDBotExtension implements BotrinoExtension {
                         .build(),
                 ServiceDescriptor.builder(ofType(GDClient.class))
                         .setFactoryMethod(externalStaticFactory(ExternalServices.class, "gdClient",
-                                Mono.class, ref(ofType(ConfigContainer.class))))
-                        .build(),
-                ServiceDescriptor.builder(ofType(SpriteFactory.class))
-                        .setFactoryMethod(externalStaticFactory(ExternalServices.class, "spriteFactory", Mono.class))
+                                Mono.class, ref(ofType(ConfigContainer.class)), ref(ofType(GDClientCache.class))))
                         .build()
         );
     }
@@ -0,0 +1,41 @@
+package ultimategdbot.service;
+
+import jdash.client.request.GDRequest;
+import jdash.client.request.GDRouter;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Router that shares the response of a request with every identical request sent while it is in flight, so that they
+ * only take one request limiter permit. It sits below the client cache, so requests that are served from cache never
+ * reach it, and requests made in write-only mode or with the cache disabled only join a request that is being sent to
+ * GD servers at that moment, whose response is as fresh as their own would be.
+ */
+final class CoalescingGDRouter implements GDRouter {
+
+    private final GDRouter delegate;
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+
+    CoalescingGDRouter(GDRouter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Mono<String> send(GDRequest request) {
+        return Mono.defer(() -> {
+            final var key = GDRequestKey.of(request);
+            return inFlight.computeIfAbsent(key, k -> {
+                // Only remove this exact Mono, a new one may already be in flight under the same key
+                final var self = new AtomicReference<Mono<String>>();
+                final var shared = delegate.send(request)
+                        .doFinally(signal -> inFlight.remove(k, self.get()))
+                        .cache();
+                self.set(shared);
+                return shared;
+            });
+        });
+    }
+}
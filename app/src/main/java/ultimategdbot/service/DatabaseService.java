@@ -13,13 +13,28 @@ import org.immutables.criteria.mongo.MongoSetup;
 import org.immutables.criteria.mongo.bson4jackson.BsonModule;
 import org.immutables.criteria.mongo.bson4jackson.IdAnnotationModule;
 import org.immutables.criteria.mongo.bson4jackson.JacksonCodecs;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
 import ultimategdbot.config.MongoDBConfig;
 import ultimategdbot.database.*;
 
+import java.time.Duration;
+import java.util.Optional;
+
 @RdiService
 public final class DatabaseService {
 
+    private static final Logger LOGGER = Loggers.getLogger(DatabaseService.class);
+
     private final Backend backend;
+    private final InQueryChunker inQueryChunker;
+    private final GdLeaderboardBanSet gdLeaderboardBanSet = new GdLeaderboardBanSet();
+    private final GdLeaderboardWriteBuffer gdLeaderboardWriteBuffer;
+    @Nullable
+    private final GdLeaderboardAggregationDao gdLeaderboardAggregationDao;
 
     @RdiFactory
     public DatabaseService(ConfigContainer configContainer) {
@@ -32,8 +47,29 @@ public final class DatabaseService {
         @SuppressWarnings("UnstableApiUsage")
         final var registry = JacksonCodecs.registryFromMapper(mapper);
         final var client = MongoClients.create(config.connectionString());
-        final var db = client.getDatabase(config.databaseName()).withCodecRegistry(registry);
+        final var rawDb = client.getDatabase(config.databaseName());
+        final var db = rawDb.withCodecRegistry(registry);
         this.backend = new MongoBackend(MongoSetup.of(db));
+        this.inQueryChunker = new InQueryChunker(config.inQueryChunkSize(), config.inQueryConcurrency());
+        this.gdLeaderboardWriteBuffer = new GdLeaderboardWriteBuffer(backend, config.statsFlushSize(),
+                config.statsMaxPending(), Duration.ofSeconds(config.statsFlushIntervalSeconds()));
+        if (config.leaderboardAggregation()) {
+            this.gdLeaderboardAggregationDao = new GdLeaderboardAggregationDao(rawDb);
+            gdLeaderboardAggregationDao.createIndexes()
+                    .doOnError(e -> LOGGER.error("Failed to create indexes for leaderboard aggregation", e))
+                    .onErrorResume(e -> Mono.empty())
+                    .subscribe();
+        } else {
+            this.gdLeaderboardAggregationDao = null;
+        }
+        if (config.banRefreshIntervalSeconds() > 0) {
+            final var interval = Duration.ofSeconds(config.banRefreshIntervalSeconds());
+            Flux.interval(interval, interval)
+                    .concatMap(tick -> gdLeaderboardBanDao().refreshBanSet()
+                            .doOnError(e -> LOGGER.error("Failed to refresh leaderboard ban set", e))
+                            .onErrorResume(e -> Mono.empty()))
+                    .subscribe();
+        }
     }
 
     public GuildConfigDao guildConfigDao() {
@@ -49,15 +85,43 @@ public final class DatabaseService {
     }
 
     public GdLinkedUserDao gdLinkedUserDao() {
-        return new GdLinkedUserDao(backend);
+        return new GdLinkedUserDao(backend, inQueryChunker);
     }
 
     public GdLeaderboardDao gdLeaderboardDao() {
-        return new GdLeaderboardDao(backend);
+        return new GdLeaderboardDao(backend, inQueryChunker, gdLeaderboardWriteBuffer);
     }
 
     public GdLeaderboardBanDao gdLeaderboardBanDao() {
-        return new GdLeaderboardBanDao(backend);
+        return new GdLeaderboardBanDao(backend, gdLeaderboardBanSet);
+    }
+
+    public GdLeaderboardSnapshotDao gdLeaderboardSnapshotDao() {
+        return new GdLeaderboardSnapshotDao(backend);
+    }
+
+    /**
+     * Gets the DAO computing leaderboards inside MongoDB. Empty if disabled in the configuration, in which case
+     * leaderboards should be computed in memory.
+     */
+    public Optional<GdLeaderboardAggregationDao> gdLeaderboardAggregationDao() {
+        return Optional.ofNullable(gdLeaderboardAggregationDao);
+    }
+
+    public GdIconSetDao gdIconSetDao() {
+        return new GdIconSetDao(backend);
+    }
+
+    public GdUserNameDao gdUserNameDao() {
+        return new GdUserNameDao(backend);
+    }
+
+    public GdIndexedLevelDao gdIndexedLevelDao() {
+        return new GdIndexedLevelDao(backend);
+    }
+
+    public GdSongDao gdSongDao() {
+        return new GdSongDao(backend);
     }
 
     public GdModDao gdModDao() {
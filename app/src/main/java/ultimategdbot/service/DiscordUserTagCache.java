@@ -0,0 +1,71 @@
+package ultimategdbot.service;
+
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.UserUpdateEvent;
+import discord4j.core.event.domain.guild.MemberChunkEvent;
+import discord4j.core.event.domain.guild.MemberJoinEvent;
+import discord4j.core.event.domain.guild.MemberUpdateEvent;
+import discord4j.core.object.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+
+import java.time.Duration;
+
+import static discord4j.core.retriever.EntityRetrievalStrategy.STORE_FALLBACK_REST;
+
+/**
+ * Bounded cache of Discord user tags. It is kept up to date from gateway events, and falls back to the store then to
+ * REST for users that were never seen, so that known users can be displayed without any API call. Entries expire a
+ * few hours after they were last written, which bounds how stale a tag can be if an update event is missed; the next
+ * lookup then fetches it again.
+ */
+@RdiService
+public final class DiscordUserTagCache {
+
+    private static final Logger LOGGER = Loggers.getLogger(DiscordUserTagCache.class);
+    private static final int MAX_SIZE = 50_000;
+    private static final Duration TTL = Duration.ofHours(6);
+
+    private final GatewayDiscordClient gateway;
+    private final Cache<Long, String> tags = Caffeine.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .expireAfterWrite(TTL)
+            .build();
+
+    @RdiFactory
+    public DiscordUserTagCache(GatewayDiscordClient gateway) {
+        this.gateway = gateway;
+        // UserUpdateEvent only concerns the bot itself, renames of other users come with member updates
+        Flux.merge(
+                gateway.on(UserUpdateEvent.class).map(UserUpdateEvent::getCurrent),
+                gateway.on(MemberUpdateEvent.class).flatMap(event -> event.getMember()
+                        .onErrorResume(e -> Mono.empty())),
+                gateway.on(MemberJoinEvent.class).map(MemberJoinEvent::getMember),
+                gateway.on(MemberChunkEvent.class).flatMapIterable(MemberChunkEvent::getMembers))
+                .doOnNext(this::put)
+                .onErrorContinue((e, user) -> LOGGER.warn("Failed to update the tag of " + user, e))
+                .subscribe(null, e -> LOGGER.error("Discord user tag updates stopped", e));
+    }
+
+    public Mono<String> getTag(long userId) {
+        final var cached = tags.getIfPresent(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return gateway.withRetrievalStrategy(STORE_FALLBACK_REST)
+                .getUserById(Snowflake.of(userId))
+                .doOnNext(this::put)
+                .map(User::getTag);
+    }
+
+    private void put(User user) {
+        tags.put(user.getId().asLong(), user.getTag());
+    }
+}
@@ -7,13 +7,14 @@ import jdash.client.GDClient;
 import jdash.client.cache.GDCache;
 import jdash.client.request.GDRouter;
 import jdash.client.request.RequestLimiter;
-import jdash.graphics.SpriteFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 import ultimategdbot.config.UltimateGDBotConfig;
 
+import java.io.IOException;
 import java.time.Duration;
 
 public final class ExternalServices {
@@ -28,25 +29,35 @@ public final class ExternalServices {
         return gateway.getApplicationInfo();
     }
 
-    public static Mono<GDClient> gdClient(ConfigContainer configContainer) {
+    public static Mono<GDClient> gdClient(ConfigContainer configContainer, GDClientCache gdClientCache) {
         var config = configContainer.get(UltimateGDBotConfig.class).gd().client();
+        GDRouter router = new CoalescingGDRouter(GDRouter.builder()
+                .setBaseUrl(config.host())
+                .setRequestTimeout(config.requestTimeoutSeconds() > 0
+                        ? Duration.ofSeconds(config.requestTimeoutSeconds()) : null)
+                .setRequestLimiter(config.requestLimiter()
+                        .map(l -> RequestLimiter.of(l.limit(), Duration.ofSeconds(l.intervalSeconds())))
+                        .orElseGet(RequestLimiter::none))
+                .build());
+        GDCache cache = gdClientCache;
+        if (config.diskCache().isPresent()) {
+            final var diskCacheConfig = config.diskCache().orElseThrow();
+            final GDDiskCache diskCache;
+            try {
+                diskCache = GDDiskCache.open(diskCacheConfig, gdClientCache);
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            router = diskCache.wrap(router);
+            cache = diskCache.wrapCache();
+            Flux.interval(Duration.ofSeconds(diskCacheConfig.compactionIntervalSeconds()), Schedulers.boundedElastic())
+                    .subscribe(tick -> diskCache.compact());
+            Runtime.getRuntime().addShutdownHook(new Thread(diskCache::close));
+        }
         return GDClient.create()
-                .withRouter(GDRouter.builder()
-                        .setBaseUrl(config.host())
-                        .setRequestTimeout(config.requestTimeoutSeconds() > 0
-                                ? Duration.ofSeconds(config.requestTimeoutSeconds()) : null)
-                        .setRequestLimiter(config.requestLimiter()
-                                .map(l -> RequestLimiter.of(l.limit(), Duration.ofSeconds(l.intervalSeconds())))
-                                .orElseGet(RequestLimiter::none))
-                        .build())
-                .withCache(GDCache.caffeine(c -> c.expireAfterAccess(Duration.ofSeconds(config.cacheTtlSeconds()))))
+                .withRouter(router)
+                .withCache(cache)
                 .login(config.username(), config.password())
                 .doOnNext(client -> LOGGER.debug("Successfully logged into GD account " + config.username()));
     }
-
-    public static Mono<SpriteFactory> spriteFactory() {
-        return Mono.fromCallable(SpriteFactory::create)
-                .subscribeOn(Schedulers.boundedElastic())
-                .onErrorMap(e -> new RuntimeException("An error occurred when loading the GD icons sprite factory", e));
-    }
 }
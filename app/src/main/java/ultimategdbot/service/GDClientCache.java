@@ -0,0 +1,197 @@
+package ultimategdbot.service;
+
+import botrino.api.config.ConfigContainer;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jdash.client.cache.GDCache;
+import jdash.client.request.GDRequest;
+import ultimategdbot.config.UltimateGDBotConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache of the GD client, split into classes of requests that each have their own TTL and size limit.
+ * Requests are classified by matching their URI against the endpoints configured for each class, the first matching
+ * class being used. Requests that match no class use the global cache TTL, with no size limit.
+ */
+@RdiService
+public final class GDClientCache implements GDCache {
+
+    private static final String DEFAULT_CLASS_NAME = "other";
+
+    private final List<CacheClass> classes = new ArrayList<>();
+    private final CacheClass defaultClass;
+
+    @RdiFactory
+    public GDClientCache(ConfigContainer configContainer) {
+        final var config = configContainer.get(UltimateGDBotConfig.class).gd().client();
+        for (final var policy : config.cachePolicies()) {
+            final var ttl = Duration.ofSeconds(policy.ttlSeconds());
+            classes.add(new CacheClass(policy.name(), policy.endpoints(), ttl, Caffeine.newBuilder()
+                    .maximumSize(policy.maxSize())
+                    .expireAfter(new ClassExpiry(ttl, false))
+                    .build()));
+        }
+        final var defaultTtl = Duration.ofSeconds(config.cacheTtlSeconds());
+        this.defaultClass = new CacheClass(DEFAULT_CLASS_NAME, List.of(), defaultTtl, Caffeine.newBuilder()
+                .expireAfter(new ClassExpiry(defaultTtl, true))
+                .build());
+    }
+
+    @Override
+    public Optional<Object> retrieve(GDRequest request) {
+        final var cacheClass = classify(request);
+        final var cached = cacheClass.cache.getIfPresent(request);
+        (cached != null ? cacheClass.hits : cacheClass.misses).increment();
+        return Optional.ofNullable(cached);
+    }
+
+    @Override
+    public void put(GDRequest request, Object cachedObject) {
+        classify(request).cache.put(request, cachedObject);
+    }
+
+    /**
+     * Caches the given object for a shorter time than the TTL of its class, typically because it was loaded from a
+     * source where it had already spent part of its TTL.
+     *
+     * @param request      the request
+     * @param cachedObject the object to cache
+     * @param ttl          the time the object stays in the cache, capped to the TTL of its class
+     */
+    public void put(GDRequest request, Object cachedObject, Duration ttl) {
+        final var cacheClass = classify(request);
+        final var effectiveTtl = ttl.compareTo(cacheClass.ttl) < 0 ? ttl : cacheClass.ttl;
+        cacheClass.cache.policy().expireVariably().orElseThrow()
+                .put(request, cachedObject, effectiveTtl.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the TTL of the class the given request belongs to.
+     *
+     * @param request the request
+     * @return the TTL
+     */
+    public Duration ttlOf(GDRequest request) {
+        return classify(request).ttl;
+    }
+
+    /**
+     * Gets the hit and miss counts of each class of requests, the class of unclassified requests being last.
+     *
+     * @return the stats of each class
+     */
+    public List<ClassStats> stats() {
+        final var stats = new ArrayList<ClassStats>();
+        for (final var cacheClass : classes) {
+            stats.add(cacheClass.stats());
+        }
+        stats.add(defaultClass.stats());
+        return Collections.unmodifiableList(stats);
+    }
+
+    private CacheClass classify(GDRequest request) {
+        final var uri = request.getUri();
+        for (final var cacheClass : classes) {
+            for (final var endpoint : cacheClass.endpoints) {
+                if (uri.contains(endpoint)) {
+                    return cacheClass;
+                }
+            }
+        }
+        return defaultClass;
+    }
+
+    /*
+     * Same as expireAfterWrite, or expireAfterAccess when resetOnRead is true, but allows entries to be given a shorter
+     * TTL when they are put.
+     */
+    private static final class ClassExpiry implements Expiry<GDRequest, Object> {
+        private final long ttlNanos;
+        private final boolean resetOnRead;
+
+        private ClassExpiry(Duration ttl, boolean resetOnRead) {
+            this.ttlNanos = ttl.toNanos();
+            this.resetOnRead = resetOnRead;
+        }
+
+        @Override
+        public long expireAfterCreate(GDRequest key, Object value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(GDRequest key, Object value, long currentTime, long currentDuration) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(GDRequest key, Object value, long currentTime, long currentDuration) {
+            return resetOnRead ? ttlNanos : currentDuration;
+        }
+    }
+
+    private static final class CacheClass {
+        private final String name;
+        private final List<String> endpoints;
+        private final Duration ttl;
+        private final Cache<GDRequest, Object> cache;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private CacheClass(String name, List<String> endpoints, Duration ttl, Cache<GDRequest, Object> cache) {
+            this.name = name;
+            this.endpoints = endpoints;
+            this.ttl = ttl;
+            this.cache = cache;
+        }
+
+        private ClassStats stats() {
+            return new ClassStats(name, cache.estimatedSize(), hits.sum(), misses.sum());
+        }
+    }
+
+    public static final class ClassStats {
+        private final String name;
+        private final long size;
+        private final long hits;
+        private final long misses;
+
+        private ClassStats(String name, long size, long hits, long misses) {
+            this.name = name;
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public double hitRate() {
+            final var total = hits + misses;
+            return total == 0 ? 0 : hits / (double) total;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ultimategdbot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jdash.client.cache.GDCache;
+import jdash.client.request.GDRequest;
+import jdash.client.request.GDRouter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.util.SegmentStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Persists raw GD server responses on disk so that they survive restarts. The GD client cache only holds parsed
+ * objects, so the disk tier works at both ends of the request:
+ *
+ * <ul>
+ *     <li>the {@link GDCache} wrapper remembers which requests missed the in-memory cache, and commits the response
+ *     of a request to disk once the client decides to cache its result</li>
+ *     <li>the {@link GDRouter} wrapper answers requests that missed the in-memory cache from disk when possible, and
+ *     otherwise keeps the raw response until the cache wrapper commits it</li>
+ * </ul>
+ *
+ * Requests made with the cache disabled are never read from nor written to disk, and requests made in write-only
+ * mode always reach GD servers but still update the disk tier.
+ *
+ * <p>Responses are kept on disk for the TTL of their class in {@link GDClientCache}. Only responses written before
+ * the bot started are read back from disk. Responses received since then went
+ * through the in-memory cache already, and serving them again once they left it would make data older than its
+ * in-memory TTL allows. For the same reason, a response read from disk is only kept in memory for the part of its
+ * TTL it has left.</p>
+ */
+public final class GDDiskCache {
+
+    private static final Logger LOGGER = Loggers.getLogger(GDDiskCache.class);
+    private static final Duration PENDING_RESPONSE_TTL = Duration.ofMinutes(1);
+
+    private final SegmentStore store;
+    private final GDClientCache classCache;
+    private final long openedAt = System.currentTimeMillis();
+    // Requests are compared by identity, they are the same instances when they reach the cache and the router
+    private final Cache<GDRequest, Boolean> missedInMemory = Caffeine.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(PENDING_RESPONSE_TTL)
+            .build();
+    private final Cache<GDRequest, String> pendingResponses = Caffeine.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(PENDING_RESPONSE_TTL)
+            .build();
+    // Expiration time of the responses that were read from disk
+    private final Cache<GDRequest, Long> readFromDisk = Caffeine.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(PENDING_RESPONSE_TTL)
+            .build();
+
+    private GDDiskCache(SegmentStore store, GDClientCache classCache) {
+        this.store = store;
+        this.classCache = classCache;
+    }
+
+    public static GDDiskCache open(UltimateGDBotConfig.DiskCache config, GDClientCache classCache)
+            throws IOException {
+        final var store = SegmentStore.open(Path.of(config.directory()), config.maxBytes());
+        LOGGER.info("Loaded {} GD responses from the disk cache ({} bytes)", store.entryCount(), store.totalSize());
+        return new GDDiskCache(store, classCache);
+    }
+
+    /**
+     * Wraps the {@link GDClientCache} this disk cache was opened with.
+     *
+     * @return the wrapped cache
+     */
+    public GDCache wrapCache() {
+        return new GDCache() {
+            @Override
+            public Optional<Object> retrieve(GDRequest request) {
+                final var cached = classCache.retrieve(request);
+                if (cached.isEmpty()) {
+                    missedInMemory.put(request, true);
+                }
+                return cached;
+            }
+
+            @Override
+            public void put(GDRequest request, Object cachedObject) {
+                final var expiresAt = readFromDisk.asMap().remove(request);
+                if (expiresAt != null) {
+                    final var remaining = expiresAt - System.currentTimeMillis();
+                    if (remaining > 0) {
+                        classCache.put(request, cachedObject, Duration.ofMillis(remaining));
+                    }
+                    return;
+                }
+                classCache.put(request, cachedObject);
+                final var response = pendingResponses.asMap().remove(request);
+                if (response != null) {
+                    Schedulers.boundedElastic().schedule(() -> write(request, response));
+                }
+            }
+        };
+    }
+
+    public GDRouter wrap(GDRouter router) {
+        return new GDRouter() {
+            @Override
+            public Mono<String> send(GDRequest request) {
+                final var fromNetwork = router.send(request)
+                        .doOnNext(response -> pendingResponses.put(request, response));
+                if (missedInMemory.asMap().remove(request) == null) {
+                    return fromNetwork;
+                }
+                return Mono.fromCallable(() -> store.get(GDRequestKey.of(request), openedAt)
+                                .map(entry -> {
+                                    readFromDisk.put(request, entry.expiresAt());
+                                    return new String(entry.value(), StandardCharsets.UTF_8);
+                                })
+                                .orElse(null))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .switchIfEmpty(fromNetwork);
+            }
+        };
+    }
+
+    public void compact() {
+        try {
+            store.compact();
+        } catch (IOException e) {
+            LOGGER.error("Failed to compact the GD disk cache", e);
+        }
+    }
+
+    public void close() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            LOGGER.error("Failed to close the GD disk cache", e);
+        }
+    }
+
+    private void write(GDRequest request, String response) {
+        try {
+            store.put(GDRequestKey.of(request), response.getBytes(StandardCharsets.UTF_8),
+                    classCache.ttlOf(request));
+        } catch (IOException e) {
+            LOGGER.error("Failed to write to the GD disk cache", e);
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package ultimategdbot.service;
 
+import botrino.api.config.ConfigContainer;
 import botrino.api.i18n.Translator;
 import botrino.api.util.DurationUtils;
 import botrino.api.util.MessageTemplate;
 import botrino.command.CommandContext;
 import botrino.command.CommandFailedException;
 import botrino.command.CommandService;
+import botrino.command.menu.PageNumberOutOfRangeException;
 import com.github.alex1304.rdi.finder.annotation.RdiFactory;
 import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import discord4j.core.object.entity.Message;
 import discord4j.core.spec.EmbedCreateSpec;
 import discord4j.core.spec.MessageCreateSpec;
@@ -16,38 +20,88 @@ import jdash.client.exception.ActionFailedException;
 import jdash.client.exception.GDClientException;
 import jdash.client.request.GDRequests;
 import jdash.common.entity.GDLevel;
+import jdash.common.entity.GDSong;
 import jdash.common.entity.GDTimelyInfo;
+import reactor.core.Disposables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
 import reactor.util.annotation.Nullable;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 import ultimategdbot.Strings;
+import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.database.GdIndexedLevel;
+import ultimategdbot.database.GdSong;
 import ultimategdbot.util.EmbedType;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
 
 import static botrino.api.util.Markdown.*;
-import static reactor.function.TupleUtils.function;
 import static ultimategdbot.util.GDFormatter.formatCode;
 import static ultimategdbot.util.GDLevels.*;
 import static ultimategdbot.util.InteractionUtils.unexpectedReply;
-import static ultimategdbot.util.InteractionUtils.writeOnlyIfRefresh;
 
 @RdiService
 public final class GDLevelService {
 
+    private static final Logger LOGGER = Loggers.getLogger(GDLevelService.class);
+    private static final int RESULTS_PER_PAGE = 10;
+    private static final int PREFETCH_BUFFER_SIZE = 2;
+    private static final int DEFAULT_MAX_CONCURRENT_PREFETCHES = 4;
+    private static final Duration LEVEL_METADATA_TTL = Duration.ofMinutes(10);
+    private static final int RENDER_CACHE_MAX_SIZE = 1000;
+    private static final Duration RENDER_CACHE_TTL = Duration.ofHours(1);
+
     private final EmojiService emoji;
     private final CommandService commandService;
     private final GDClient gdClient;
+    private final GDSongService songService;
+    private final LevelSearchIndex searchIndex;
+    private final Cache<Long, LevelMetadata> levelMetadataCache;
+    private final Cache<RenderKey, EmbedCreateSpec> renderCache = Caffeine.newBuilder()
+            .maximumSize(RENDER_CACHE_MAX_SIZE)
+            .expireAfterAccess(RENDER_CACHE_TTL)
+            .build();
+    /*
+     * The request limiter does not expose its queue, so the number of prefetches running at the same time is capped
+     * instead. When all permits are taken, GD requests are piling up and prefetching is skipped.
+     */
+    private final Semaphore prefetchPermits;
+    private final AtomicReference<Mono<TimelyLevel>> dailyCache = new AtomicReference<>();
+    private final AtomicReference<Mono<TimelyLevel>> weeklyCache = new AtomicReference<>();
 
     @RdiFactory
-    public GDLevelService(EmojiService emoji, CommandService commandService, GDClient gdClient) {
+    public GDLevelService(ConfigContainer configContainer, EmojiService emoji, CommandService commandService,
+                          GDClient gdClient, GDSongService songService, LevelSearchIndex searchIndex) {
         this.emoji = emoji;
         this.commandService = commandService;
         this.gdClient = gdClient;
+        this.songService = songService;
+        this.searchIndex = searchIndex;
+        final var config = configContainer.get(UltimateGDBotConfig.class).gd();
+        this.levelMetadataCache = Caffeine.newBuilder()
+                .maximumSize(config.levelMetadataCacheMaxSize())
+                .expireAfterWrite(LEVEL_METADATA_TTL)
+                .build();
+        this.prefetchPermits = new Semaphore(config.client()
+                .requestLimiter()
+                .map(limiter -> Math.max(1, limiter.limit() / 4))
+                .orElse(DEFAULT_MAX_CONCURRENT_PREFETCHES));
+        this.dailyCache.set(timelyLevel(false));
+        this.weeklyCache.set(timelyLevel(true));
     }
 
     public EmbedCreateSpec searchResultsEmbed(CommandContext ctx, Iterable<? extends GDLevel> results, String title,
@@ -60,6 +114,9 @@ public final class GDLevelService {
                     ? "user_coin" : "user_coin_unverified"), level.coinCount(), true);
             final var difficultyEmoji = emoji.get(getDifficultyEmojiForLevel(level));
             final var song = level.song().map(s -> formatSong(ctx, s))
+                    .or(() -> level.songId().flatMap(songService::getIfCached)
+                            .filter(GdSong::isKnown)
+                            .map(s -> formatSong(ctx, s)))
                     .orElse(":warning: " + ctx.translate(Strings.GD, "song_unknown"));
             embed.addField(String.format("`%02d` - %s %s | __**%s**__ by **%s** %s%s",
                     i,
@@ -90,22 +147,35 @@ public final class GDLevelService {
 
     public Mono<EmbedCreateSpec> detailedEmbed(CommandContext ctx, long levelId, String creatorName, EmbedType type,
                                                @Nullable GDTimelyInfo timelyInfo) {
-        final var gdClient = writeOnlyIfRefresh(ctx, this.gdClient);
-        return gdClient.downloadLevel(levelId)
-                .zipWhen(level -> extractSongParts(ctx, level))
-                .map(function((level, songParts) -> {
+        return getLevelMetadata(ctx, levelId)
+                .flatMap(level -> detailedEmbed(ctx, level, creatorName, type, timelyInfo));
+    }
+
+    private Mono<EmbedCreateSpec> detailedEmbed(CommandContext ctx, LevelMetadata level, String creatorName,
+                                                EmbedType type, @Nullable GDTimelyInfo timelyInfo) {
+        final var renderKey = new RenderKey(level.id(), level.levelVersion(), ctx, type, timelyInfo,
+                List.of(level.downloads(), level.likes(), level.hasCoinsVerified(), level.difficultyImage(),
+                        level.creatorName().orElse(creatorName), level.description(), level.uploadedAgo(),
+                        level.updatedAgo()));
+        final var cached = renderCache.getIfPresent(renderKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return extractSongParts(ctx, level.song(), level.songId())
+                .map(songParts -> {
                     final var embed = EmbedCreateSpec.builder();
                     final var suffix = timelyInfo != null ? " #" + timelyInfo.number() : "";
                     embed.author(type.getAuthorName(ctx) + suffix, null, type.getAuthorIconUrl());
-                    embed.thumbnail(getDifficultyImageForLevel(level));
+                    embed.thumbnail(level.difficultyImage());
                     final var title = emoji.get("play") + "  __" + level.name() + "__ by " +
                             level.creatorName().orElse(creatorName);
                     final var desc = bold(ctx.translate(Strings.GD, "label_description")) + ' ' +
                             (level.description().isEmpty()
                                     ? italic('(' + ctx.translate(Strings.GD, "no_description") + ')')
                                     : escape(level.description()));
-                    final var coins = formatCoins(ctx, level);
-                    final var downloadLikesLength = formatDownloadsLikesLength(level);
+                    final var coins = formatCoins(ctx, level.hasCoinsVerified(), level.coinCount());
+                    final var downloadLikesLength = formatDownloadsLikesLength(level.downloads(), level.likes(),
+                            level.length());
                     var objCount = bold(ctx.translate(Strings.GD, "label_object_count")) + ' ';
                     if (level.objectCount() > 0 || level.levelVersion() >= 21) {
                         if (level.objectCount() == 65535) {
@@ -152,14 +222,64 @@ public final class GDLevelService {
                     embed.addField(coins, downloadLikesLength + "\n_ _", false);
                     embed.addField(":musical_note:   " + songParts.getT1(),
                             songParts.getT2() + "\n_ _\n" + extraInfo, false);
-                    return embed.build();
-                }));
+                    return cacheRender(ctx, renderKey, songParts, embed.build());
+                });
+    }
+
+    private Mono<LevelMetadata> getLevelMetadata(CommandContext ctx, long levelId) {
+        // Timely levels are downloaded using negative IDs, and those change every day
+        if (levelId > 0 && ctx.input().getFlag("refresh").isEmpty()) {
+            final var cached = levelMetadataCache.getIfPresent(levelId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+        }
+        return downloadLevelMetadata(levelId)
+                .doOnNext(metadata -> levelMetadataCache.put(metadata.id(), metadata));
+    }
+
+    private Mono<LevelMetadata> downloadLevelMetadata(long levelId) {
+        return gdClient.withCacheDisabled()
+                .downloadLevel(levelId)
+                .map(level -> ImmutableLevelMetadata.builder()
+                        .id(level.id())
+                        .name(level.name())
+                        .creatorName(level.creatorName())
+                        .description(level.description())
+                        .difficultyImage(getDifficultyImageForLevel(level))
+                        .coinCount(level.coinCount())
+                        .hasCoinsVerified(level.hasCoinsVerified())
+                        .downloads(level.downloads())
+                        .likes(level.likes())
+                        .length(String.valueOf(level.length()))
+                        .objectCount(level.objectCount())
+                        .levelVersion(level.levelVersion())
+                        .gameVersion(level.gameVersion())
+                        .isCopyable(level.isCopyable())
+                        .copyPasscode(level.copyPasscode().map(Number::longValue))
+                        .uploadedAgo(String.valueOf(level.uploadedAgo()))
+                        .updatedAgo(String.valueOf(level.updatedAgo()))
+                        .originalLevelId(level.originalLevelId())
+                        .song(level.song())
+                        .songId(level.songId())
+                        .stars(level.stars())
+                        .build())
+                .doOnNext(metadata -> searchIndex.index(metadata.id(), metadata.name(), metadata.creatorName(),
+                        metadata.stars()));
     }
 
     public Mono<EmbedCreateSpec> compactEmbed(Translator tr, GDLevel level, EmbedType type,
                                               @Nullable GDTimelyInfo timelyInfo) {
-        return extractSongParts(tr, level).map(Tuple2::getT1)
-                .map(songInfo -> {
+        final var renderKey = new RenderKey(level.id(), level.levelVersion(), tr, type, timelyInfo,
+                List.of(level.downloads(), level.likes(), level.hasCoinsVerified(), getDifficultyImageForLevel(level),
+                        level.creatorName().orElse("-")));
+        final var cached = renderCache.getIfPresent(renderKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return extractSongParts(tr, level.song(), level.songId())
+                .map(songParts -> {
+                    final var songInfo = songParts.getT1();
                     final var embed = EmbedCreateSpec.builder();
                     final var suffix = timelyInfo != null ? " #" + timelyInfo.number() : "";
                     embed.author(type.getAuthorName(tr) + suffix, null, type.getAuthorIconUrl());
@@ -168,48 +288,150 @@ public final class GDLevelService {
                             emoji.get("play") + "  __" + level.name() + "__ by " + level.creatorName().orElse("-") +
                             (level.originalLevelId().orElse(0L) > 0 ? ' ' + emoji.get("copy") : "") +
                             (level.objectCount() > 40_000 ? ' ' + emoji.get("object_overflow") : "");
-                    final var coins = formatCoins(tr, level);
-                    final var downloadLikesLength = formatDownloadsLikesLength(level);
+                    final var coins = formatCoins(tr, level.hasCoinsVerified(), level.coinCount());
+                    final var downloadLikesLength = formatDownloadsLikesLength(level.downloads(), level.likes(),
+                            level.length());
                     embed.addField(title, downloadLikesLength, false);
                     embed.addField(coins, ":musical_note:   " + songInfo, false);
                     embed.footer(tr.translate(Strings.GD, "label_level_id") + ' ' + level.id(), null);
-                    return embed.build();
+                    return cacheRender(tr, renderKey, songParts, embed.build());
                 });
     }
 
     public Mono<Void> interactiveSearch(CommandContext ctx, String title,
                                         IntFunction<? extends Flux<? extends GDLevel>> searchFunction) {
 		final var resultsOfCurrentPage = new AtomicReference<List<? extends GDLevel>>();
-        return searchFunction.apply(0).collectList()
+        final var prefetchedPages = new ConcurrentHashMap<Integer, Mono<List<GDLevel>>>();
+        final var prefetchSubscriptions = Disposables.composite();
+        final IntFunction<Mono<List<GDLevel>>> fetchPage = page -> {
+            final var prefetched = prefetchedPages.remove(page);
+            return prefetched != null ? prefetched
+                    : searchFunction.apply(page).cast(GDLevel.class).collectList();
+        };
+        final IntConsumer prefetchNext = page -> {
+            if (prefetchedPages.size() >= PREFETCH_BUFFER_SIZE || prefetchedPages.containsKey(page)
+                    || !prefetchPermits.tryAcquire()) {
+                return;
+            }
+            final var prefetch = searchFunction.apply(page).cast(GDLevel.class).collectList()
+                    .doFinally(signal -> prefetchPermits.release())
+                    .cache();
+            prefetchedPages.put(page, prefetch);
+            prefetchSubscriptions.add(prefetch.subscribe(null, e -> prefetchedPages.remove(page, prefetch)));
+        };
+        return fetchPage.apply(0)
                 .doOnNext(resultsOfCurrentPage::set)
+                .doOnNext(songService::warmUp)
+                .doOnNext(searchIndex::indexAll)
                 .flatMap(results -> results.size() == 1 ? sendSelectedSearchResult(ctx, results.get(0), false)
                         : commandService.interactiveMenuFactory()
-                        .createPaginated((tr, page) -> searchFunction.apply(page).collectList()
+                        .createPaginated((tr, page) -> fetchPage.apply(page)
                                 .doOnNext(resultsOfCurrentPage::set)
+                                .doOnNext(songService::warmUp)
+                                .doOnNext(searchIndex::indexAll)
+                                .doOnNext(newResults -> {
+                                    if (newResults.size() >= RESULTS_PER_PAGE) {
+                                        prefetchNext.accept(page + 1);
+                                    }
+                                })
                                 .map(newResults -> MessageTemplate.builder()
                                         .setEmbed(searchResultsEmbed(ctx, newResults, title, page))
                                         .build()))
-                        .addMessageItem("select", interaction -> {
-                            if (interaction.getInput().getArguments().size() < 2) {
-                                return unexpectedReply(ctx, ctx.translate(Strings.GD, "error_select_not_specified"));
-                            }
-                            final var selectedInput = interaction.getInput().getArguments().get(1);
-                            if (!selectedInput.matches("[0-9]{1,2}")) {
-                                return unexpectedReply(ctx, ctx.translate(Strings.GD, "error_invalid_input"));
-                            }
-                            final var currentResults = resultsOfCurrentPage.get();
-                            final var selected = Integer.parseInt(selectedInput) - 1;
-                            if (selected < 0 || selected >= currentResults.size()) {
-                                return unexpectedReply(ctx, ctx.translate(Strings.GD, "error_select_not_existing"));
-                            }
-                            return sendSelectedSearchResult(ctx, currentResults.get(selected), true);
-                        })
+                        .addMessageItem("select", interaction -> selectResult(ctx,
+                                interaction.getInput().getArguments(), resultsOfCurrentPage.get())
+                                .flatMap(selected -> sendSelectedSearchResult(ctx, selected, true)))
                         .open(ctx)
-                        .then());
+                        .then())
+                .doFinally(signal -> {
+                    prefetchSubscriptions.dispose();
+                    prefetchedPages.clear();
+                });
+    }
+
+    /**
+     * Opens an interactive menu to navigate through levels found in the local search index. Unlike
+     * {@link #interactiveSearch(CommandContext, String, IntFunction)}, no request is sent to GD servers until a level
+     * is selected.
+     *
+     * @param ctx     the context of the command
+     * @param title   the title of the menu
+     * @param results the levels found in the local index
+     * @return a Mono completing when the menu is closed
+     */
+    public Mono<Void> interactiveLocalSearch(CommandContext ctx, String title, List<GdIndexedLevel> results) {
+        if (results.size() == 1) {
+            return sendSelectedSearchResult(ctx, results.get(0).levelId(),
+                    results.get(0).creatorName().orElse("-"), false);
+        }
+        final var lastPage = Math.max(0, (results.size() - 1) / RESULTS_PER_PAGE);
+        final var currentPage = new AtomicInteger();
+        return commandService.interactiveMenuFactory()
+                .createPaginated((tr, page) -> {
+                    PageNumberOutOfRangeException.check(page, lastPage);
+                    currentPage.set(page);
+                    return Mono.just(MessageTemplate.builder()
+                            .setEmbed(localSearchResultsEmbed(ctx, pageOf(results, page), title, page, lastPage))
+                            .build());
+                })
+                .addMessageItem("select", interaction -> selectResult(ctx, interaction.getInput().getArguments(),
+                        pageOf(results, currentPage.get()))
+                        .flatMap(selected -> sendSelectedSearchResult(ctx, selected.levelId(),
+                                selected.creatorName().orElse("-"), true)))
+                .open(ctx)
+                .then();
+    }
+
+    private EmbedCreateSpec localSearchResultsEmbed(CommandContext ctx, List<GdIndexedLevel> results, String title,
+                                                    int page, int lastPage) {
+        final var embed = EmbedCreateSpec.builder();
+        embed.title(title);
+        var i = 1;
+        for (final var level : results) {
+            embed.addField(String.format("`%02d` - %s__**%s**__ by **%s**",
+                    i,
+                    level.stars() > 0 ? emoji.get("star") + " x" + level.stars() + " | " : "",
+                    level.name(),
+                    level.creatorName().orElse("-")),
+                    ctx.translate(Strings.GD, "label_level_id") + ' ' + level.levelId(), false);
+            i++;
+        }
+        if (i == 1) {
+            embed.description(italic(ctx.translate(Strings.GD, "no_results")));
+        }
+        embed.addField(ctx.translate(Strings.GENERAL, "page_x", page + 1, lastPage + 1),
+                ctx.translate(Strings.GENERAL, "page_instructions") + '\n'
+                        + ctx.translate(Strings.GD, "select_result"), false);
+        return embed.build();
+    }
+
+    private static <T> List<T> pageOf(List<T> results, int page) {
+        return results.subList(Math.min(results.size(), page * RESULTS_PER_PAGE),
+                Math.min(results.size(), (page + 1) * RESULTS_PER_PAGE));
+    }
+
+    private static <T> Mono<T> selectResult(CommandContext ctx, List<String> arguments,
+                                            List<? extends T> currentResults) {
+        if (arguments.size() < 2) {
+            return unexpectedReply(ctx, ctx.translate(Strings.GD, "error_select_not_specified"));
+        }
+        final var selectedInput = arguments.get(1);
+        if (!selectedInput.matches("[0-9]{1,2}")) {
+            return unexpectedReply(ctx, ctx.translate(Strings.GD, "error_invalid_input"));
+        }
+        final var selected = Integer.parseInt(selectedInput) - 1;
+        if (selected < 0 || selected >= currentResults.size()) {
+            return unexpectedReply(ctx, ctx.translate(Strings.GD, "error_select_not_existing"));
+        }
+        return Mono.just(currentResults.get(selected));
     }
 
     private Mono<Void> sendSelectedSearchResult(CommandContext ctx, GDLevel level, boolean withCloseOption) {
-        return detailedEmbed(ctx, level.id(), level.creatorName().orElse("-"), EmbedType.LEVEL_SEARCH_RESULT, null)
+        return sendSelectedSearchResult(ctx, level.id(), level.creatorName().orElse("-"), withCloseOption);
+    }
+
+    private Mono<Void> sendSelectedSearchResult(CommandContext ctx, long levelId, String creatorName,
+                                                boolean withCloseOption) {
+        return detailedEmbed(ctx, levelId, creatorName, EmbedType.LEVEL_SEARCH_RESULT, null)
                 .flatMap(embed -> !withCloseOption ? ctx.channel().createEmbed(embed).then()
                         : commandService.interactiveMenuFactory().create(MessageCreateSpec.create().withEmbed(embed))
                         .addReactionItem(commandService.interactiveMenuFactory()
@@ -221,12 +443,13 @@ public final class GDLevelService {
     }
 
     public Mono<Message> sendTimelyInfo(CommandContext ctx, boolean isWeekly) {
-        final var gdClient = writeOnlyIfRefresh(ctx, this.gdClient);
-        final var timelyMono = isWeekly ? gdClient.getWeeklyDemonInfo() : gdClient.getDailyLevelInfo();
-        final var downloadId = isWeekly ? -2 : -1;
         final var type = isWeekly ? EmbedType.WEEKLY_DEMON : EmbedType.DAILY_LEVEL;
-        return timelyMono
-                .flatMap(timely -> detailedEmbed(ctx, downloadId, "-", type, timely)
+        final var timelyCache = isWeekly ? weeklyCache : dailyCache;
+        if (ctx.input().getFlag("refresh").isPresent()) {
+            timelyCache.set(timelyLevel(isWeekly));
+        }
+        return timelyCache.get()
+                .flatMap(timely -> detailedEmbed(ctx, timely.level, "-", type, timely.info)
                         .flatMap(embed -> ctx.channel()
                                 .createMessage(ctx.translate(Strings.GD, "timely_of_today",
                                         type.getAuthorName(ctx), DurationUtils.format(timely.nextIn())))
@@ -238,32 +461,127 @@ public final class GDLevelService {
                                 ctx.translate(Strings.GD, "error_no_timely_set", type.getAuthorName(ctx))));
     }
 
-    private Mono<Tuple2<String, String>> extractSongParts(Translator tr, GDLevel level) {
-        return level.song().map(Mono::just)
-                .or(() -> level.songId().map(gdClient::getSongInfo))
-                .map(songMono -> songMono.map(s -> Tuples.of(formatSong(tr, s),
+    /**
+     * Discards the cached daily level or weekly demon and fetches the new one right away. Meant to be called when the
+     * timely level is known to have changed.
+     *
+     * @param isWeekly whether it is the weekly demon that changed
+     */
+    public void refreshTimely(boolean isWeekly) {
+        final var timely = timelyLevel(isWeekly);
+        (isWeekly ? weeklyCache : dailyCache).set(timely);
+        timely.subscribe(null, e -> LOGGER.warn("Failed to refresh " + (isWeekly ? "weekly demon" : "daily level"),
+                e));
+    }
+
+    /*
+     * The timely info and level are kept until the timely level is supposed to change. Errors are not cached.
+     */
+    private Mono<TimelyLevel> timelyLevel(boolean isWeekly) {
+        final var gdClient = this.gdClient.withCacheDisabled();
+        return (isWeekly ? gdClient.getWeeklyDemonInfo() : gdClient.getDailyLevelInfo())
+                .zipWith(downloadLevelMetadata(isWeekly ? -2 : -1), TimelyLevel::new)
+                .cache(TimelyLevel::nextIn, e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    private EmbedCreateSpec cacheRender(Translator tr, RenderKey key, Tuple2<String, String> songParts,
+                                        EmbedCreateSpec embed) {
+        // Don't keep embeds rendered while song info was unavailable, the next render may get it
+        if (!songParts.equals(unknownSongParts(tr))) {
+            renderCache.put(key, embed);
+        }
+        return embed;
+    }
+
+    private Mono<Tuple2<String, String>> extractSongParts(Translator tr, Optional<GDSong> song,
+                                                          Optional<Long> songId) {
+        return song
+                .map(s -> Mono.just(Tuples.of(formatSong(tr, s),
                         formatSongExtra(tr, s, emoji.get("play"), emoji.get("download_song")))))
+                .or(() -> songId.map(songId -> songService.getSong(songId).map(s -> songParts(tr, s))))
                 .orElseGet(() -> Mono.just(unknownSongParts(tr)))
-                .onErrorReturn(e -> e instanceof GDClientException
-                        && ((GDClientException) e).getRequest().getUri().equals(GDRequests.GET_GJ_SONG_INFO)
-                        && e.getCause() instanceof ActionFailedException
-                        && e.getCause().getMessage().equals("-2"), bannedSongParts(tr))
                 .onErrorReturn(unknownSongParts(tr));
     }
 
-    private String formatCoins(Translator tr, GDLevel level) {
+    private Tuple2<String, String> songParts(Translator tr, GdSong song) {
+        if (song.isBanned()) {
+            return bannedSongParts(tr);
+        }
+        if (!song.isKnown()) {
+            return unknownSongParts(tr);
+        }
+        return Tuples.of(formatSong(tr, song), formatSongExtra(tr, song, emoji.get("play"),
+                emoji.get("download_song")));
+    }
+
+    private String formatCoins(Translator tr, boolean hasCoinsVerified, int coinCount) {
         return tr.translate(Strings.GD, "label_coins") + ' ' +
-                coinsToEmoji(emoji.get(level.hasCoinsVerified()
-                        ? "user_coin" : "user_coin_unverified"), level.coinCount(), false);
+                coinsToEmoji(emoji.get(hasCoinsVerified ? "user_coin" : "user_coin_unverified"), coinCount, false);
     }
 
-    private String formatDownloadsLikesLength(GDLevel level) {
+    private String formatDownloadsLikesLength(int downloads, int likes, Object length) {
         final var width = 9;
         return emoji.get("downloads") + ' ' +
-                formatCode(level.downloads(), width) + '\n' +
-                emoji.get(level.likes() >= 0 ? "like" : "dislike") + ' ' +
-                formatCode(level.likes(), width) + '\n' + emoji.get("length") + ' ' +
-                formatCode(level.length(), width);
+                formatCode(downloads, width) + '\n' +
+                emoji.get(likes >= 0 ? "like" : "dislike") + ' ' +
+                formatCode(likes, width) + '\n' + emoji.get("length") + ' ' +
+                formatCode(length, width);
     }
 
+
+    /*
+     * Levels can be rated, liked or have their description edited without their version changing, so the values that
+     * are displayed and may change that way are part of the key. When they change, the previous render is simply never
+     * hit again and ends up evicted.
+     */
+    private static final class RenderKey {
+        private final long levelId;
+        private final int levelVersion;
+        private final Locale locale;
+        private final EmbedType type;
+        private final long timelyNumber;
+        private final List<Object> stats;
+
+        private RenderKey(long levelId, int levelVersion, Translator tr, EmbedType type,
+                          @Nullable GDTimelyInfo timelyInfo, List<Object> stats) {
+            this.levelId = levelId;
+            this.levelVersion = levelVersion;
+            this.locale = tr.getLocale();
+            this.type = type;
+            this.timelyNumber = timelyInfo != null ? timelyInfo.number() : 0;
+            this.stats = stats;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RenderKey renderKey = (RenderKey) o;
+            return levelId == renderKey.levelId && levelVersion == renderKey.levelVersion
+                    && timelyNumber == renderKey.timelyNumber && type == renderKey.type
+                    && locale.equals(renderKey.locale) && stats.equals(renderKey.stats);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(levelId, levelVersion, locale, type, timelyNumber, stats);
+        }
+    }
+
+    private static final class TimelyLevel {
+        private final GDTimelyInfo info;
+        private final LevelMetadata level;
+        private final Instant changesAt;
+
+        private TimelyLevel(GDTimelyInfo info, LevelMetadata level) {
+            this.info = info;
+            this.level = level;
+            this.changesAt = Instant.now().plus(info.nextIn());
+        }
+
+        private Duration nextIn() {
+            final var nextIn = Duration.between(Instant.now(), changesAt);
+            return nextIn.isNegative() ? Duration.ZERO : nextIn;
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package ultimategdbot.service;
+
+import jdash.client.request.GDRequest;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+
+final class GDRequestKey {
+
+    private GDRequestKey() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Builds a string that identifies the given request, two requests having the same key if and only if they have
+     * the same URI and parameters, regardless of parameter order. Parameters are sorted by name and URL-encoded, so
+     * that separators appearing in names or values can't make two different requests share a key. This key is
+     * persisted by the disk cache, so changing its format invalidates the entries stored there.
+     *
+     * @param request the request
+     * @return the key
+     */
+    static String of(GDRequest request) {
+        final var sb = new StringBuilder(request.getUri()).append('?');
+        var first = true;
+        for (final var param : new TreeMap<>(request.getParams()).entrySet()) {
+            if (!first) {
+                sb.append('&');
+            }
+            first = false;
+            sb.append(encode(String.valueOf(param.getKey())))
+                    .append('=')
+                    .append(encode(String.valueOf(param.getValue())));
+        }
+        return sb.toString();
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+}
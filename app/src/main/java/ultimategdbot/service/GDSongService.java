@@ -0,0 +1,143 @@
+package ultimategdbot.service;
+
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jdash.client.GDClient;
+import jdash.client.exception.ActionFailedException;
+import jdash.client.exception.GDClientException;
+import jdash.client.request.GDRequests;
+import jdash.common.entity.GDLevel;
+import jdash.common.entity.GDSong;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ultimategdbot.database.GdSong;
+import ultimategdbot.database.ImmutableGdSong;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Optional;
+
+/**
+ * Keeps song information in memory and in database, so that it is requested from GD servers only once. Banned and
+ * unknown songs are remembered as well. Unknown songs are checked again after some time, in case they get uploaded
+ * later.
+ */
+@RdiService
+public final class GDSongService {
+
+    private static final Logger LOGGER = Loggers.getLogger(GDSongService.class);
+    private static final int MEMORY_CACHE_MAX_SIZE = 10_000;
+    private static final Duration UNKNOWN_SONG_RECHECK_DELAY = Duration.ofDays(1);
+    private static final int WARM_UP_CONCURRENCY = 4;
+
+    private final DatabaseService db;
+    private final GDClient gdClient;
+    private final Cache<Long, GdSong> memoryCache = Caffeine.newBuilder()
+            .maximumSize(MEMORY_CACHE_MAX_SIZE)
+            .build();
+
+    @RdiFactory
+    public GDSongService(DatabaseService db, GDClient gdClient) {
+        this.db = db;
+        this.gdClient = gdClient;
+    }
+
+    /**
+     * Gets the song with the given ID, looking into memory first, then into database, and finally requesting it to
+     * GD servers. Errors other than the song being banned or not found are propagated and not cached.
+     *
+     * @param songId the song ID
+     * @return a Mono emitting the song, possibly banned or unknown
+     */
+    public Mono<GdSong> getSong(long songId) {
+        return Mono.justOrEmpty(getIfCached(songId))
+                .switchIfEmpty(Mono.defer(() -> db.gdSongDao().get(songId)
+                        .filter(GDSongService::isFresh)
+                        .onErrorResume(e -> {
+                            LOGGER.warn("Failed to read song " + songId + " from database", e);
+                            return Mono.empty();
+                        })
+                        .switchIfEmpty(Mono.defer(() -> fetchSong(songId)))
+                        .doOnNext(song -> memoryCache.put(songId, song))));
+    }
+
+    /**
+     * Gets the song with the given ID only if it is present in memory.
+     *
+     * @param songId the song ID
+     * @return the song, if cached in memory
+     */
+    public Optional<GdSong> getIfCached(long songId) {
+        return Optional.ofNullable(memoryCache.getIfPresent(songId)).filter(GDSongService::isFresh);
+    }
+
+    /**
+     * Fills the cache with the songs used by the given levels. Songs embedded in the levels are stored directly, the
+     * others are requested in background.
+     *
+     * @param levels the levels, typically search results
+     */
+    public void warmUp(Iterable<? extends GDLevel> levels) {
+        final var embedded = new ArrayList<GdSong>();
+        final var missing = new HashSet<Long>();
+        for (final var level : levels) {
+            level.song().filter(GDSong::isCustom).ifPresentOrElse(song -> {
+                if (getIfCached(song.id()).isEmpty()) {
+                    final var entity = fromSong(song);
+                    memoryCache.put(song.id(), entity);
+                    embedded.add(entity);
+                }
+            }, () -> level.songId().filter(id -> getIfCached(id).isEmpty()).ifPresent(missing::add));
+        }
+        db.gdSongDao().saveAll(embedded)
+                .onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Failed to save songs", e)))
+                .subscribe();
+        Flux.fromIterable(missing)
+                .flatMap(songId -> getSong(songId).onErrorResume(e -> Mono.empty()), WARM_UP_CONCURRENCY)
+                .subscribe();
+    }
+
+    private Mono<GdSong> fetchSong(long songId) {
+        return gdClient.getSongInfo(songId)
+                .map(GDSongService::fromSong)
+                .onErrorResume(GDSongService::isSongNotAvailable, e -> Mono.just(ImmutableGdSong.builder()
+                        .songId(songId)
+                        .isCustom(true)
+                        .isBanned(e.getCause().getMessage().equals("-2"))
+                        .cachedAt(Instant.now())
+                        .build()))
+                .flatMap(song -> db.gdSongDao().save(song)
+                        .onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.warn("Failed to save song " + songId, e)))
+                        .thenReturn(song));
+    }
+
+    private static GdSong fromSong(GDSong song) {
+        return ImmutableGdSong.builder()
+                .songId(song.id())
+                .title(song.title())
+                .artist(song.artist())
+                .size(song.size().map(String::valueOf))
+                .downloadUrl(song.downloadUrl().map(String::valueOf))
+                .isCustom(song.isCustom())
+                .isBanned(false)
+                .cachedAt(Instant.now())
+                .build();
+    }
+
+    private static boolean isSongNotAvailable(Throwable e) {
+        return e instanceof GDClientException
+                && ((GDClientException) e).getRequest().getUri().equals(GDRequests.GET_GJ_SONG_INFO)
+                && e.getCause() instanceof ActionFailedException;
+    }
+
+    private static boolean isFresh(GdSong song) {
+        return song.isKnown() || song.isBanned()
+                || song.cachedAt().plus(UNKNOWN_SONG_RECHECK_DELAY).isAfter(Instant.now());
+    }
+}
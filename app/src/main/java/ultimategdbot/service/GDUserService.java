@@ -12,31 +12,44 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import discord4j.common.util.Snowflake;
 import discord4j.core.GatewayDiscordClient;
 import discord4j.core.object.entity.Attachment;
-import discord4j.core.object.entity.User;
 import discord4j.core.object.entity.channel.MessageChannel;
 import discord4j.core.spec.EmbedCreateSpec;
 import discord4j.core.spec.MessageCreateFields.File;
 import jdash.client.GDClient;
+import jdash.client.exception.GDClientException;
 import jdash.common.IconType;
 import jdash.common.Role;
 import jdash.common.entity.GDUserProfile;
 import jdash.graphics.GDUserIconSet;
-import jdash.graphics.SpriteFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import ultimategdbot.Strings;
 import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.database.GdIconSet;
+import ultimategdbot.database.ImmutableGdIconSet;
 import ultimategdbot.util.EmbedType;
+import ultimategdbot.util.LatencyStats;
+import ultimategdbot.util.PngEncoder;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static botrino.api.util.Markdown.italic;
 import static discord4j.core.retriever.EntityRetrievalStrategy.STORE_FALLBACK_REST;
@@ -47,26 +60,62 @@ import static ultimategdbot.util.GDFormatter.formatPolicy;
 @RdiService
 public final class GDUserService {
 
+    private static final int ICON_SET_HASH_VERSION = 1;
+    private static final Duration URL_EXPIRY_MARGIN = Duration.ofHours(1);
+    private static final int DEFAULT_PROFILE_FETCH_CONCURRENCY = 8;
+    private static final int INDEXED_USER_NAMES_MAX_SIZE = 10_000;
+
     private final DatabaseService db;
     private final EmojiService emoji;
     private final GDClient gdClient;
-    private final SpriteFactory spriteFactory;
+    private final SpriteService spriteService;
     private final GatewayDiscordClient gateway;
+    private final IconFileServer iconFileServer;
+    private final DiscordUserTagCache userTagCache;
 
-    private final Cache<GDUserIconSet, String> iconsCache;
+    private final Cache<String, String> iconsCache;
+    private final Cache<IconKey, BufferedImage> iconPartsCache;
+    private final Map<String, Mono<String>> iconSetsInFlight = new ConcurrentHashMap<>();
+    private final Scheduler renderScheduler = Schedulers.newParallel("icon-render",
+            Runtime.getRuntime().availableProcessors());
+    private final PngEncoder pngEncoder;
+    private final LatencyStats iconRenderQueueWait = new LatencyStats();
+    private final LatencyStats iconRenderTime = new LatencyStats();
+    private final LongAdder coalescedIconSetRequests = new LongAdder();
     private final Snowflake iconChannelId;
+    private final int profileFetchConcurrency;
+    private final Duration userNameIndexFreshness;
+    private final Cache<String, Long> indexedUserNames;
 
     @RdiFactory
     public GDUserService(ConfigContainer configContainer, DatabaseService db, EmojiService emoji, GDClient gdClient,
-                         SpriteFactory spriteFactory, GatewayDiscordClient gateway) {
+                         SpriteService spriteService, GatewayDiscordClient gateway, IconFileServer iconFileServer,
+                         DiscordUserTagCache userTagCache) {
         var config = configContainer.get(UltimateGDBotConfig.class).gd();
         this.db = db;
         this.emoji = emoji;
         this.gdClient = gdClient;
-        this.spriteFactory = spriteFactory;
+        this.spriteService = spriteService;
         this.iconsCache = Caffeine.newBuilder().maximumSize(config.iconCacheMaxSize()).build();
+        // Icons differ a lot in size depending on the form and the glow, so the cache is bounded by decoded pixel size
+        this.iconPartsCache = Caffeine.newBuilder()
+                .maximumWeight(config.iconPartCacheMaxBytes())
+                .<IconKey, BufferedImage>weigher((key, image) -> image.getWidth() * image.getHeight() * 4)
+                .build();
         this.iconChannelId = config.iconChannelId().map(Snowflake::of).orElse(null);
+        this.pngEncoder = new PngEncoder(config.iconPngCompressionLevel());
+        this.userNameIndexFreshness = Duration.ofSeconds(config.userNameIndexFreshnessSeconds());
+        // Entries expire well before the index entry becomes stale, so that it still gets refreshed in time
+        this.indexedUserNames = Caffeine.newBuilder()
+                .maximumSize(INDEXED_USER_NAMES_MAX_SIZE)
+                .expireAfterWrite(userNameIndexFreshness.dividedBy(2))
+                .build();
+        this.profileFetchConcurrency = config.client().requestLimiter()
+                .map(limiter -> Math.max(1, limiter.limit()))
+                .orElse(DEFAULT_PROFILE_FETCH_CONCURRENCY);
         this.gateway = gateway;
+        this.iconFileServer = iconFileServer;
+        this.userTagCache = userTagCache;
     }
 
     /**
@@ -92,18 +141,10 @@ public final class GDUserService {
 		return new String(result);
 	}
 
-    private static Mono<ByteArrayInputStream> imageStream(BufferedImage img) {
-        return Mono.fromCallable(() -> {
-            final var os = new ByteArrayOutputStream(100_000);
-            ImageIO.write(img, "png", os);
-            return new ByteArrayInputStream(os.toByteArray());
-        }).subscribeOn(Schedulers.boundedElastic());
-    }
-
     public Mono<MessageTemplate> buildProfile(Translator tr, GDUserProfile gdUser, EmbedType type) {
         return Mono.zip(db.gdLinkedUserDao()
                 .getDiscordAccountsForGDUser(gdUser.accountId())
-                .flatMap(id -> gateway.withRetrievalStrategy(STORE_FALLBACK_REST).getUserById(Snowflake.of(id)))
+                .flatMap(userTagCache::getTag)
                 .collectList(), makeIconSet(tr, gdUser))
                 .map(function((linkedAccounts, icons) -> {
                     final var role = gdUser.role().orElse(Role.USER);
@@ -135,8 +176,7 @@ public final class GDUserService {
                                                     gdUser.twitter() + ')') +
                                             infoEntry("discord", "Discord:", linkedAccounts.isEmpty()
                                                     ? italic(tr.translate(Strings.GENERAL, "unknown"))
-                                                    : linkedAccounts.stream().map(User::getTag)
-                                                    .collect(Collectors.joining(", "))) +
+                                                    : String.join(", ", linkedAccounts)) +
                                             "\n───────────\n" +
                                             infoEntry("friends", tr.translate(Strings.GD, "label_friend_requests"),
                                                     (gdUser.hasFriendRequestsEnabled()
@@ -160,44 +200,172 @@ public final class GDUserService {
     }
 
     public Mono<String> makeIconSet(Translator tr, GDUserProfile user) {
-	    if (iconChannelId == null) {
+	    if (iconChannelId == null && !iconFileServer.isEnabled()) {
 	        return Mono.just("No channel is configured to publish generated icon sets.");
         }
         return Mono.defer(() -> {
-            final var iconSet = GDUserIconSet.create(user, spriteFactory);
-            final var cached = iconsCache.getIfPresent(iconSet);
-            if (cached != null) {
+            final var hash = iconSetHash(user);
+            // The file server keeps its own in-memory index, looking it up also marks the file as recently used so
+            // that it isn't evicted while its URL is still being handed out
+            final var cached = iconFileServer.isEnabled() ? null : iconsCache.getIfPresent(hash);
+            if (cached != null && !isExpired(cached)) {
                 return Mono.just(cached);
             }
-            final var icons = new ArrayList<BufferedImage>();
-            try {
-                for (var iconType : IconType.values()) {
-                    icons.add(iconSet.generateIcon(iconType));
-                }
-            } catch (IllegalArgumentException e) {
-                return Mono.error(e);
+            final var existing = iconSetsInFlight.get(hash);
+            if (existing != null) {
+                coalescedIconSetRequests.increment();
+                return existing;
             }
-            final var iconSetImg = new BufferedImage(icons.stream().mapToInt(BufferedImage::getWidth).sum(),
-                    icons.get(0).getHeight(), icons.get(0).getType());
-            final var g = iconSetImg.createGraphics();
-            var offset = 0;
-            for (var icon : icons) {
-                g.drawImage(icon, offset, 0, null);
-                offset += icon.getWidth();
-            }
-            g.dispose();
-            return Mono.zip(gateway.getChannelById(iconChannelId).ofType(MessageChannel.class), imageStream(iconSetImg))
-                    .flatMap(function((c, stream) -> c.createMessage("").withFiles(
-                            File.of(user.playerId() + "-IconSet.png", stream))))
-                    .flatMap(msg -> Flux.fromIterable(msg.getAttachments()).next())
-                    .filter(att -> att.getSize() > 0)
-                    .timeout(Duration.ofSeconds(30), Mono.empty())
-                    .switchIfEmpty(Mono.error(new CommandFailedException(
-                            tr.translate("GDStrings", "error_icon_set_upload_failed"))))
-                    .map(Attachment::getUrl)
-                    .doOnNext(url -> iconsCache.put(iconSet, url));
-        }).subscribeOn(Schedulers.boundedElastic())
-                .onErrorResume(e -> Mono.just(e.getMessage()));
+            final var source = iconFileServer.isEnabled()
+                    ? iconFileServer.find(hash)
+                            .switchIfEmpty(Mono.defer(() -> renderIconSet(user)
+                                    .flatMap(encoded -> iconFileServer.store(hash, encoded))))
+                    : db.gdIconSetDao().get(hash)
+                            .flatMap(stored -> isExpired(stored.url())
+                                    ? refreshIconSetUrl(stored) : Mono.just(stored.url()))
+                            .switchIfEmpty(Mono.defer(() -> uploadIconSet(tr, user, hash)));
+            return iconSetsInFlight.computeIfAbsent(hash, k -> source
+                    .doOnNext(url -> {
+                        if (!iconFileServer.isEnabled()) {
+                            iconsCache.put(hash, url);
+                        }
+                    })
+                    .doFinally(signal -> iconSetsInFlight.remove(hash))
+                    .cache());
+        }).onErrorResume(e -> Mono.just(e.getMessage()));
+    }
+
+    public LatencyStats iconRenderQueueWait() {
+        return iconRenderQueueWait;
+    }
+
+    public LatencyStats iconRenderTime() {
+        return iconRenderTime;
+    }
+
+    public long coalescedIconSetRequests() {
+        return coalescedIconSetRequests.sum();
+    }
+
+    private Mono<String> uploadIconSet(Translator tr, GDUserProfile user, String hash) {
+        return Mono.usingWhen(renderIconSet(user),
+                        encoded -> gateway.getChannelById(iconChannelId).ofType(MessageChannel.class)
+                                .flatMap(c -> c.createMessage("")
+                                        .withFiles(File.of(user.playerId() + "-IconSet.png", encoded.stream()))),
+                        encoded -> Mono.fromRunnable(encoded::release),
+                        (encoded, e) -> Mono.fromRunnable(encoded::release),
+                        // On cancellation the upload may still be reading from the buffer, so it is left to the GC
+                        encoded -> Mono.empty())
+                .flatMap(msg -> Flux.fromIterable(msg.getAttachments()).next()
+                        .filter(att -> att.getSize() > 0)
+                        .map(att -> ImmutableGdIconSet.builder()
+                                .hash(hash)
+                                .channelId(msg.getChannelId().asLong())
+                                .messageId(msg.getId().asLong())
+                                .url(att.getUrl())
+                                .build()))
+                .timeout(Duration.ofSeconds(30), Mono.empty())
+                .switchIfEmpty(Mono.error(new CommandFailedException(
+                        tr.translate("GDStrings", "error_icon_set_upload_failed"))))
+                .flatMap(stored -> db.gdIconSetDao().save(stored)
+                        .onErrorResume(e -> Mono.empty())
+                        .thenReturn(stored.url()));
+    }
+
+    /**
+     * Renders all icons of the set side by side and encodes the result as PNG. This is CPU-bound work, so it runs on
+     * a dedicated scheduler sized to the number of cores rather than on the scheduler used for blocking I/O. Each
+     * icon is taken from a cache shared by all icon sets, so only the icons that were never seen before are rendered.
+     */
+    private Mono<PngEncoder.EncodedImage> renderIconSet(GDUserProfile user) {
+        return spriteService.spriteFactory().flatMap(spriteFactory -> {
+            final var submittedAt = System.nanoTime();
+            return Mono.fromCallable(() -> {
+                final var startedAt = System.nanoTime();
+                iconRenderQueueWait.record(startedAt - submittedAt);
+                try {
+                    final var iconSet = GDUserIconSet.create(user, spriteFactory);
+                    final var icons = new ArrayList<BufferedImage>();
+                    for (var iconType : IconType.values()) {
+                        icons.add(iconPartsCache.get(new IconKey(user, iconType),
+                                k -> iconSet.generateIcon(iconType)));
+                    }
+                    final var iconSetImg = new BufferedImage(icons.stream().mapToInt(BufferedImage::getWidth).sum(),
+                            icons.get(0).getHeight(), icons.get(0).getType());
+                    final var g = iconSetImg.createGraphics();
+                    var offset = 0;
+                    for (var icon : icons) {
+                        g.drawImage(icon, offset, 0, null);
+                        offset += icon.getWidth();
+                    }
+                    g.dispose();
+                    return pngEncoder.encode(iconSetImg);
+                } finally {
+                    iconRenderTime.record(System.nanoTime() - startedAt);
+                }
+            }).subscribeOn(renderScheduler);
+        });
+    }
+
+    /**
+     * Fetches the message an icon set was uploaded to in order to get a freshly signed URL for its attachment. Emits
+     * nothing if the message is no longer available, in which case the icon set needs to be uploaded again.
+     */
+    private Mono<String> refreshIconSetUrl(GdIconSet stored) {
+        return gateway.getMessageById(Snowflake.of(stored.channelId()), Snowflake.of(stored.messageId()))
+                .flatMap(msg -> Flux.fromIterable(msg.getAttachments()).next())
+                .map(Attachment::getUrl)
+                .onErrorResume(e -> Mono.empty())
+                .flatMap(url -> db.gdIconSetDao().save(ImmutableGdIconSet.copyOf(stored).withUrl(url))
+                        .onErrorResume(e -> Mono.empty())
+                        .thenReturn(url));
+    }
+
+    /**
+     * Computes a hash that only depends on the icons, colors and glow displayed in the icon set of the given user,
+     * so that two users with the same icons share the same rendered image.
+     */
+    private static String iconSetHash(GDUserProfile user) {
+        final var key = ICON_SET_HASH_VERSION + ":" + user.cubeIconId() + ',' + user.shipIconId() + ',' +
+                user.ballIconId() + ',' + user.ufoIconId() + ',' + user.waveIconId() + ',' + user.robotIconId() +
+                ',' + user.spiderIconId() + ',' + user.color1Id() + ',' + user.color2Id() + ',' +
+                user.hasGlowOutline();
+        final byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+        final var sb = new StringBuilder(digest.length * 2);
+        for (var b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Discord attachment URLs are signed and carry their expiration timestamp in hexadecimal in the <code>ex</code>
+     * query parameter. URLs without this parameter are considered to never expire.
+     */
+    private static boolean isExpired(String url) {
+        var start = url.indexOf("?ex=");
+        if (start == -1) {
+            start = url.indexOf("&ex=");
+        }
+        if (start == -1) {
+            return false;
+        }
+        start += 4;
+        var end = url.indexOf('&', start);
+        if (end == -1) {
+            end = url.length();
+        }
+        try {
+            final var expiresAt = Long.parseLong(url.substring(start, end), 16);
+            return Instant.now().plus(URL_EXPIRY_MARGIN).getEpochSecond() >= expiresAt;
+        } catch (NumberFormatException e) {
+            return true;
+        }
     }
 
 	public Mono<GDUserProfile> stringToUser(Translator tr, String str) {
@@ -209,10 +377,43 @@ public final class GDUserService {
 
 
     public Mono<GDUserProfile> stringToUserAlwaysRefresh(Translator tr, String str) {
-        return stringToUser0(tr, str, gdClient.withWriteOnlyCache());
+        return stringToUser0(tr, str, gdClient.withWriteOnlyCache(), true);
+    }
+
+    /**
+     * Resolves several users at once. Duplicate inputs are only resolved once, and requests are sent concurrently
+     * within the limits of the GD request limiter. Profiles are emitted in the order of the inputs, and the stats of
+     * all of them are saved to the leaderboard in a single batch once they have all been fetched. Inputs that don't
+     * match any user, or that fail to resolve, don't interrupt the others and are given to the unresolved callback.
+     *
+     * @param tr           the translator to use for error messages
+     * @param inputs       the user names or mentions to resolve
+     * @param refresh      whether to bypass the cache of the GD client
+     * @param onUnresolved called with each input that could not be resolved
+     * @return a Flux emitting the resolved profiles
+     */
+    public Flux<GDUserProfile> getProfiles(Translator tr, Collection<String> inputs, boolean refresh,
+                                           Consumer<String> onUnresolved) {
+        final var gdClient = refresh ? this.gdClient.withWriteOnlyCache() : this.gdClient;
+        final var distinctInputs = new LinkedHashMap<String, String>();
+        inputs.forEach(input -> distinctInputs.putIfAbsent(input.toLowerCase(), input));
+        final var fetched = new ConcurrentLinkedQueue<GDUserProfile>();
+        return Flux.fromIterable(distinctInputs.values())
+                .flatMapSequential(input -> stringToUser0(tr, input, gdClient, false)
+                        .onErrorResume(e -> e instanceof CommandFailedException || e instanceof GDClientException,
+                                e -> Mono.empty())
+                        .switchIfEmpty(Mono.fromRunnable(() -> onUnresolved.accept(input))),
+                        profileFetchConcurrency)
+                .doOnNext(fetched::add)
+                .concatWith(Mono.defer(() -> db.gdLeaderboardDao().saveAllStats(List.copyOf(fetched)))
+                        .then(Mono.empty()));
     }
 
     private Mono<GDUserProfile> stringToUser0(Translator tr, String str, GDClient gdClient) {
+        return stringToUser0(tr, str, gdClient, true);
+    }
+
+    private Mono<GDUserProfile> stringToUser0(Translator tr, String str, GDClient gdClient, boolean saveStats) {
         if (str.matches("<@!?[0-9]{1,19}>")) {
             var id = str.substring(str.startsWith("<@!") ? 3 : 2, str.length() - 1);
             return Mono.just(id)
@@ -222,16 +423,42 @@ public final class GDUserService {
                     .onErrorMap(e -> new CommandFailedException(tr.translate(Strings.GD, "error_mention_resolve")))
                     .flatMap(user -> db.gdLinkedUserDao().getActiveLink(user.getId().asLong()))
                     .flatMap(linkedUser -> gdClient.getUserProfile(linkedUser.gdUserId())
-                            .flatMap(db.gdLeaderboardDao()::saveStats)
-                            .cast(GDUserProfile.class))
+                            .doOnNext(this::indexUserName)
+                            .flatMap(profile -> saveStats
+                                    ? db.gdLeaderboardDao().saveStats(profile).thenReturn(profile)
+                                    : Mono.just(profile)))
                     .switchIfEmpty(Mono.error(new CommandFailedException(tr.translate(Strings.GD, "error_no_gd_account"))));
         }
         if (!str.matches("[a-zA-Z0-9 _-]+")) {
             return Mono.error(new CommandFailedException(tr.translate(Strings.GD, "error_invalid_characters")));
         }
-        return gdClient.searchUsers(str, 0).next()
-                .filter(user -> user.accountId() > 0)
-                .flatMap(user -> gdClient.getUserProfile(user.accountId()));
+        return db.gdUserNameDao().get(str)
+                .filter(entry -> entry.lastUpdated().plus(userNameIndexFreshness).isAfter(Instant.now()))
+                .onErrorResume(e -> Mono.empty())
+                .flatMap(entry -> gdClient.getUserProfile(entry.accountId())
+                        .onErrorResume(GDClientException.class, e -> Mono.empty()))
+                // The user may have been renamed since the entry was saved
+                .filter(profile -> profile.name().equalsIgnoreCase(str))
+                .switchIfEmpty(Mono.defer(() -> gdClient.searchUsers(str, 0).next()
+                        .filter(user -> user.accountId() > 0)
+                        .flatMap(user -> gdClient.getUserProfile(user.accountId()))))
+                .doOnNext(this::indexUserName);
+    }
+
+    /**
+     * Records the name of the user in the name index in the background, without waiting for the write to complete.
+     * Nothing is written if this name was recently recorded for the same account.
+     */
+    private void indexUserName(GDUserProfile profile) {
+        final var lowercaseName = profile.name().toLowerCase();
+        final var indexedAccountId = indexedUserNames.getIfPresent(lowercaseName);
+        if (indexedAccountId != null && indexedAccountId == profile.accountId()) {
+            return;
+        }
+        db.gdUserNameDao().save(profile.name(), profile.accountId())
+                .doOnNext(result -> indexedUserNames.put(lowercaseName, profile.accountId()))
+                .onErrorResume(e -> Mono.empty())
+                .subscribe();
     }
 
     private String statEntry(String emojiName, int stat) {
@@ -247,4 +474,55 @@ public final class GDUserService {
                 ? emoji.get("mod") + " **MODERATOR**\n"
                 : emoji.get("elder_mod") + " **ELDER MODERATOR**\n";
     }
+
+    private static int iconId(GDUserProfile user, IconType type) {
+        switch (type) {
+            case CUBE:
+                return user.cubeIconId();
+            case SHIP:
+                return user.shipIconId();
+            case BALL:
+                return user.ballIconId();
+            case UFO:
+                return user.ufoIconId();
+            case WAVE:
+                return user.waveIconId();
+            case ROBOT:
+                return user.robotIconId();
+            case SPIDER:
+                return user.spiderIconId();
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static final class IconKey {
+        private final IconType type;
+        private final int id;
+        private final int color1Id;
+        private final int color2Id;
+        private final boolean glow;
+
+        private IconKey(GDUserProfile user, IconType type) {
+            this.type = type;
+            this.id = iconId(user, type);
+            this.color1Id = user.color1Id();
+            this.color2Id = user.color2Id();
+            this.glow = user.hasGlowOutline();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            IconKey iconKey = (IconKey) o;
+            return id == iconKey.id && color1Id == iconKey.color1Id && color2Id == iconKey.color2Id
+                    && glow == iconKey.glow && type == iconKey.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id, color1Id, color2Id, glow);
+        }
+    }
 }
@@ -0,0 +1,246 @@
+package ultimategdbot.service;
+
+import botrino.api.config.ConfigContainer;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.util.PngEncoder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Optional HTTP server serving rendered icon sets from a directory on disk. Files are named after the hash of the
+ * icon set they contain followed by the hash of their content, so a file never changes once its URL is known and it
+ * can be cached indefinitely by clients.
+ *
+ * <p>The total size of the stored files is kept under the configured budget by deleting the files that were served
+ * or looked up least recently. Access times are only tracked in memory, after a restart the modification time of the
+ * files is used instead.</p>
+ */
+@RdiService
+public final class IconFileServer {
+
+    private static final Logger LOGGER = Loggers.getLogger(IconFileServer.class);
+    private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f]{64})-([0-9a-f]{16})\\.png");
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int CONTENT_HASH_LENGTH = 16;
+
+    @Nullable
+    private final Path directory;
+    @Nullable
+    private final String publicUrl;
+    private final long maxBytes;
+    private final Map<String, StoredFile> filesByHash = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicReference<DisposableServer> server = new AtomicReference<>();
+
+    @RdiFactory
+    public IconFileServer(ConfigContainer configContainer) {
+        final var config = configContainer.get(UltimateGDBotConfig.class).gd().iconServer().orElse(null);
+        if (config == null) {
+            this.directory = null;
+            this.publicUrl = null;
+            this.maxBytes = 0;
+            return;
+        }
+        this.directory = Path.of(config.storageDirectory());
+        this.publicUrl = config.publicUrl().endsWith("/") ? config.publicUrl() : config.publicUrl() + '/';
+        this.maxBytes = config.maxBytes();
+        try {
+            Files.createDirectories(directory);
+            loadExistingFiles();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        HttpServer.create()
+                .host(config.host())
+                .port(config.port())
+                .route(routes -> routes.get("/icons/{file}", this::serve))
+                .bind()
+                .subscribe(server -> {
+                    this.server.set(server);
+                    LOGGER.info("Icon server listening on {}:{}", config.host(), server.port());
+                }, e -> LOGGER.error("Failed to start icon server", e));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            final var server = this.server.getAndSet(null);
+            if (server != null) {
+                server.disposeNow();
+            }
+        }));
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Gets the URL of the icon set with the given hash if it has already been stored.
+     */
+    public Mono<String> find(String hash) {
+        return Mono.justOrEmpty(filesByHash.get(hash))
+                .doOnNext(StoredFile::touch)
+                .map(file -> publicUrl + "icons/" + file.name);
+    }
+
+    /**
+     * Writes the icon set to disk and returns the URL it is served at. The encoded image is released once written.
+     */
+    public Mono<String> store(String hash, PngEncoder.EncodedImage image) {
+        return Mono.fromCallable(() -> {
+            final var tmp = Files.createTempFile(directory, hash, ".tmp");
+            try (final var in = new DigestInputStream(image.stream(), sha256())) {
+                Files.copy(in, tmp, REPLACE_EXISTING);
+                final var contentHash = toHex(in.getMessageDigest().digest()).substring(0, CONTENT_HASH_LENGTH);
+                final var name = hash + '-' + contentHash + ".png";
+                Files.move(tmp, directory.resolve(name), ATOMIC_MOVE, REPLACE_EXISTING);
+                register(hash, new StoredFile(name, image.size(), System.currentTimeMillis()));
+                evictIfNeeded();
+                return publicUrl + "icons/" + name;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }).subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> {
+                    if (signal != SignalType.CANCEL) {
+                        image.release();
+                    }
+                });
+    }
+
+    private Publisher<Void> serve(HttpServerRequest request, HttpServerResponse response) {
+        final var file = request.param("file");
+        final var matcher = file == null ? null : FILE_NAME.matcher(file);
+        if (matcher == null || !matcher.matches()) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+        final var stored = filesByHash.get(matcher.group(1));
+        if (stored == null || !stored.name.equals(file)) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+        stored.touch();
+        final var path = directory.resolve(file);
+        final var etag = '"' + matcher.group(2) + '"';
+        return Mono.fromCallable(() -> Files.isRegularFile(path))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                    }
+                    response.header(HttpHeaderNames.CACHE_CONTROL, CACHE_CONTROL)
+                            .header(HttpHeaderNames.ETAG, etag);
+                    if (etag.equals(request.requestHeaders().get(HttpHeaderNames.IF_NONE_MATCH))) {
+                        return Mono.from(response.status(HttpResponseStatus.NOT_MODIFIED).send());
+                    }
+                    return Mono.from(response.header(HttpHeaderNames.CONTENT_TYPE, "image/png").sendFile(path));
+                });
+    }
+
+    private void loadExistingFiles() throws IOException {
+        try (final var files = Files.list(directory)) {
+            for (final var path : files.collect(Collectors.toList())) {
+                final var name = path.getFileName().toString();
+                final var matcher = FILE_NAME.matcher(name);
+                if (matcher.matches()) {
+                    register(matcher.group(1), new StoredFile(name, Files.size(path),
+                            Files.getLastModifiedTime(path).toMillis()));
+                } else if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        evictIfNeeded();
+        LOGGER.info("Found {} stored icon sets ({} bytes)", filesByHash.size(), totalBytes.get());
+    }
+
+    private void register(String hash, StoredFile file) throws IOException {
+        final var previous = filesByHash.put(hash, file);
+        totalBytes.addAndGet(file.size);
+        if (previous == null) {
+            return;
+        }
+        totalBytes.addAndGet(-previous.size);
+        if (!previous.name.equals(file.name)) {
+            // The same icon set rendered differently, e.g. after a sprite update
+            Files.deleteIfExists(directory.resolve(previous.name));
+        }
+    }
+
+    private synchronized void evictIfNeeded() throws IOException {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        final var leastRecentlyUsed = new ArrayList<>(filesByHash.entrySet());
+        leastRecentlyUsed.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+        for (final var entry : leastRecentlyUsed) {
+            if (totalBytes.get() <= maxBytes) {
+                break;
+            }
+            if (filesByHash.remove(entry.getKey(), entry.getValue())) {
+                totalBytes.addAndGet(-entry.getValue().size);
+                Files.deleteIfExists(directory.resolve(entry.getValue().name));
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final var sb = new StringBuilder(bytes.length * 2);
+        for (final var b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static final class StoredFile {
+        private final String name;
+        private final long size;
+        private volatile long lastAccess;
+
+        private StoredFile(String name, long size, long lastAccess) {
+            this.name = name;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ultimategdbot.service;
+
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ultimategdbot.database.GdLeaderboardStat;
+import ultimategdbot.database.LeaderboardSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static reactor.function.TupleUtils.function;
+
+/**
+ * Takes a daily snapshot of the leaderboard stats of all players, in order to compute their progression over time.
+ */
+@RdiService
+public final class LeaderboardHistoryService {
+
+    private static final Logger LOGGER = Loggers.getLogger(LeaderboardHistoryService.class);
+    private static final int RETENTION_DAYS = 35;
+
+    private final DatabaseService db;
+    private final Cache<LocalDate, LeaderboardSnapshot> snapshotCache = Caffeine.newBuilder()
+            .maximumSize(4)
+            .build();
+
+    @RdiFactory
+    public LeaderboardHistoryService(DatabaseService db) {
+        this.db = db;
+        final var now = ZonedDateTime.now(ZoneOffset.UTC);
+        final var nextMidnight = now.toLocalDate().plusDays(1).atStartOfDay(ZoneOffset.UTC);
+        db.gdLeaderboardSnapshotDao().exists(now.toLocalDate())
+                .filter(exists -> !exists)
+                .flatMap(__ -> takeSnapshot())
+                .onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error(
+                        "Failed to check for today's leaderboard snapshot", e)))
+                .thenMany(Flux.interval(Duration.between(now, nextMidnight), Duration.ofDays(1))
+                        .concatMap(tick -> takeSnapshot()))
+                .subscribe();
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+
+    private Mono<Void> takeSnapshot() {
+        final var day = today();
+        // A snapshot of the same day may have been cached before this one replaced it
+        return db.gdLeaderboardSnapshotDao()
+                .save(day, db.gdLeaderboardDao().getAllSortedByAccountId())
+                .doFinally(signal -> snapshotCache.invalidate(day))
+                .then(db.gdLeaderboardSnapshotDao().deleteOlderThan(day.minusDays(RETENTION_DAYS)))
+                .doOnSuccess(__ -> LOGGER.info("Saved leaderboard snapshot of {}", day))
+                .onErrorResume(e -> Mono.fromRunnable(() -> LOGGER.error("Failed to save leaderboard snapshot", e)))
+                .then();
+    }
+
+    private Mono<LeaderboardSnapshot> snapshot(LocalDate day) {
+        final var cached = snapshotCache.getIfPresent(day);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return db.gdLeaderboardSnapshotDao().get(day).doOnNext(snapshot -> snapshotCache.put(day, snapshot));
+    }
+
+    /**
+     * Computes how much the given stat has changed in the past 7 days for each of the given accounts.
+     *
+     * @param accountIds the accounts to compute the progression for
+     * @param stat       the stat to compute the progression for
+     * @return a Mono emitting an array of the same length as accountIds, with the progression of each account at
+     * the same index. Empty if there are not enough snapshots yet.
+     */
+    public Mono<int[]> weeklyDelta(long[] accountIds, GdLeaderboardStat stat) {
+        final var day = today();
+        return Mono.zip(snapshot(day), snapshot(day.minusDays(7)))
+                .map(function((newer, older) -> LeaderboardSnapshot.delta(newer, older, accountIds, stat)));
+    }
+}
@@ -0,0 +1,83 @@
+package ultimategdbot.service;
+
+import botrino.api.config.ConfigContainer;
+import botrino.command.CommandContext;
+import botrino.command.CommandFailedException;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import discord4j.core.spec.EmbedCreateSpec;
+import jdash.client.GDClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ultimategdbot.Strings;
+import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.util.LevelDataAnalyzer;
+import ultimategdbot.util.SystemUnit;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+import static botrino.api.util.Markdown.bold;
+import static botrino.api.util.Markdown.italic;
+
+/**
+ * Analyzes the content of levels. Level data is downloaded without going through the GD client cache, and decoded
+ * on a dedicated scheduler with few threads, so that analyzing huge levels neither blocks event loops nor multiplies
+ * the memory it takes.
+ */
+@RdiService
+public final class LevelAnalysisService {
+
+    private static final Logger LOGGER = Loggers.getLogger(LevelAnalysisService.class);
+    private static final int MAX_CONCURRENT_ANALYSES = 2;
+    private static final int MAX_QUEUED_ANALYSES = 20;
+
+    private final GDClient gdClient;
+    private final LevelDataAnalyzer analyzer;
+    private final Scheduler analysisScheduler = Schedulers.newBoundedElastic(MAX_CONCURRENT_ANALYSES,
+            MAX_QUEUED_ANALYSES, "level-analysis");
+
+    @RdiFactory
+    public LevelAnalysisService(ConfigContainer configContainer, GDClient gdClient) {
+        this.gdClient = gdClient;
+        this.analyzer = new LevelDataAnalyzer(configContainer.get(UltimateGDBotConfig.class).gd()
+                .levelAnalysisMaxBytes());
+    }
+
+    public Mono<EmbedCreateSpec> analysisEmbed(CommandContext ctx, long levelId) {
+        return gdClient.withCacheDisabled()
+                .downloadLevel(levelId)
+                .flatMap(level -> Mono.fromCallable(() -> analyzer.analyze(level.data()))
+                        .subscribeOn(analysisScheduler)
+                        .onErrorMap(IOException.class, e -> {
+                            LOGGER.debug("Failed to decode data of level " + levelId, e);
+                            return new CommandFailedException(ctx.translate(Strings.GD, "error_level_data_invalid"));
+                        })
+                        .map(result -> {
+                            final var embed = EmbedCreateSpec.builder();
+                            embed.title(ctx.translate(Strings.GD, "analysis_title", level.name()));
+                            final var triggers = result.triggerCounts().isEmpty()
+                                    ? italic(ctx.translate(Strings.GD, "no_triggers"))
+                                    : result.triggerCounts().entrySet().stream()
+                                            .map(entry -> entry.getKey() + ": " + entry.getValue())
+                                            .collect(Collectors.joining("\n"));
+                            embed.addField(ctx.translate(Strings.GD, "label_analysis_triggers") + ' ' +
+                                    result.triggerCount(), triggers, false);
+                            embed.description(bold(ctx.translate(Strings.GD, "label_object_count")) + ' ' +
+                                    result.objectCount() + '\n' +
+                                    bold(ctx.translate(Strings.GD, "label_analysis_color_channels")) + ' ' +
+                                    result.colorChannelCount() + '\n' +
+                                    bold(ctx.translate(Strings.GD, "label_analysis_lag")) + ' ' +
+                                    ctx.translate(Strings.GD, "lag_estimate_" +
+                                            result.lagEstimate().name().toLowerCase()) +
+                                    (result.isTruncated() ? "\n\n:warning: " +
+                                            ctx.translate(Strings.GD, "analysis_truncated",
+                                                    SystemUnit.format(result.decompressedSize())) : ""));
+                            embed.footer(ctx.translate(Strings.GD, "label_level_id") + ' ' + level.id(), null);
+                            return embed.build();
+                        }));
+    }
+}
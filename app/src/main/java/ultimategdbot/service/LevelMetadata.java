@@ -0,0 +1,56 @@
+package ultimategdbot.service;
+
+import jdash.common.entity.GDSong;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * The information on a downloaded level that is needed to render its detailed embed. Unlike the downloaded level
+ * itself, it does not hold the level data, so it stays small regardless of how big the level is.
+ */
+@Value.Immutable
+interface LevelMetadata {
+
+    long id();
+
+    String name();
+
+    Optional<String> creatorName();
+
+    String description();
+
+    String difficultyImage();
+
+    int stars();
+
+    int coinCount();
+
+    boolean hasCoinsVerified();
+
+    int downloads();
+
+    int likes();
+
+    String length();
+
+    int objectCount();
+
+    int levelVersion();
+
+    int gameVersion();
+
+    boolean isCopyable();
+
+    Optional<Long> copyPasscode();
+
+    String uploadedAgo();
+
+    String updatedAgo();
+
+    Optional<Long> originalLevelId();
+
+    Optional<GDSong> song();
+
+    Optional<Long> songId();
+}
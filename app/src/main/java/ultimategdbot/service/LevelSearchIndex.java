@@ -0,0 +1,266 @@
+package ultimategdbot.service;
+
+import botrino.api.config.ConfigContainer;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import jdash.common.entity.GDLevel;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.database.GdIndexedLevel;
+import ultimategdbot.database.ImmutableGdIndexedLevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index of the levels seen by the bot, allowing to search them by name or creator without sending
+ * any request to GD servers. Each word of the name and creator name is indexed as is and as trigrams, so that queries
+ * can match part of a word. The index is persisted in database and loaded back in background on startup.
+ *
+ * <p>The number of indexed levels is bounded. When the index grows past its maximum size, the unrated levels that
+ * were seen the least recently are evicted first, then rated ones if needed, and they are deleted from the database
+ * as well. On startup, rated levels with the most stars and the most recent levels are loaded first.</p>
+ */
+@RdiService
+public final class LevelSearchIndex {
+
+    private static final Logger LOGGER = Loggers.getLogger(LevelSearchIndex.class);
+    private static final int NGRAM_SIZE = 3;
+    private static final int MAX_RESULTS = 250;
+    private static final int EVICTION_BATCH_DIVISOR = 20;
+
+    private final DatabaseService db;
+    private final int maxSize;
+    private final Map<Long, GdIndexedLevel> levels = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    @RdiFactory
+    public LevelSearchIndex(ConfigContainer configContainer, DatabaseService db) {
+        this.db = db;
+        this.maxSize = configContainer.get(UltimateGDBotConfig.class).gd().levelSearchIndexMaxSize();
+        db.gdIndexedLevelDao().getMostRelevant(maxSize)
+                .filter(level -> !levels.containsKey(level.levelId()))
+                // Levels loaded from database are considered older than any level seen since startup
+                .doOnNext(level -> add(level, 0))
+                .count()
+                .subscribe(count -> LOGGER.info("Loaded {} levels into the local search index", count),
+                        e -> LOGGER.error("Failed to load the local search index", e));
+    }
+
+    /**
+     * Adds the given levels to the index, or updates them if they were already indexed. Levels that are new or that
+     * changed are saved in database in background.
+     *
+     * @param levels the levels to index
+     */
+    public void indexAll(Iterable<? extends GDLevel> levels) {
+        final var changed = new ArrayList<GdIndexedLevel>();
+        final var now = System.currentTimeMillis();
+        for (final var level : levels) {
+            final var indexed = toEntity(level.id(), level.name(), level.creatorName(), level.stars());
+            if (add(indexed, now)) {
+                changed.add(indexed);
+            }
+        }
+        save(changed);
+        evictIfNeeded();
+    }
+
+    public void index(GDLevel level) {
+        indexAll(List.of(level));
+    }
+
+    void index(long levelId, String name, Optional<String> creatorName, int stars) {
+        final var indexed = toEntity(levelId, name, creatorName, stars);
+        if (add(indexed, System.currentTimeMillis())) {
+            save(List.of(indexed));
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Searches the index for levels whose name or creator name contain every word of the query. Levels whose name
+     * matches the query exactly come first, then those whose name starts with the query, then the others. Within
+     * each group, rated levels with more stars and more recent levels come first.
+     *
+     * @param query     the query
+     * @param ratedOnly whether to only return levels that are rated
+     * @return the matching levels, possibly empty
+     */
+    public List<GdIndexedLevel> search(String query, boolean ratedOnly) {
+        final var queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> candidates = null;
+        for (final var token : queryTokens) {
+            final var matches = candidatesFor(token);
+            if (candidates == null) {
+                candidates = matches;
+            } else {
+                candidates.retainAll(matches);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+        final var normalizedQuery = String.join(" ", queryTokens);
+        return candidates.stream()
+                .map(levels::get)
+                .filter(level -> level != null && (!ratedOnly || level.stars() > 0))
+                .filter(level -> queryTokens.stream().allMatch(searchableText(level)::contains))
+                .sorted(Comparator.<GdIndexedLevel>comparingInt(level -> rank(level, normalizedQuery))
+                        .thenComparing(Comparator.comparingInt(GdIndexedLevel::stars).reversed())
+                        .thenComparing(Comparator.comparingLong(GdIndexedLevel::levelId).reversed()))
+                .limit(MAX_RESULTS)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public int size() {
+        return levels.size();
+    }
+
+    private synchronized boolean add(GdIndexedLevel level, long seenAt) {
+        lastSeen.merge(level.levelId(), seenAt, Math::max);
+        final var old = levels.put(level.levelId(), level);
+        if (level.equals(old)) {
+            return false;
+        }
+        if (old != null) {
+            removePostings(old);
+        }
+        for (final var key : keys(level)) {
+            postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(level.levelId());
+        }
+        return true;
+    }
+
+    private void removePostings(GdIndexedLevel level) {
+        for (final var key : keys(level)) {
+            postings.computeIfPresent(key, (k, ids) -> {
+                ids.remove(level.levelId());
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /*
+     * Eviction only starts once the index is a bit over its maximum size, so that levels are evicted in batches
+     * rather than one by one on every addition.
+     */
+    private void evictIfNeeded() {
+        final List<Long> evicted;
+        synchronized (this) {
+            if (levels.size() <= maxSize + Math.max(1, maxSize / EVICTION_BATCH_DIVISOR)) {
+                return;
+            }
+            evicted = levels.values().stream()
+                    .sorted(Comparator.<GdIndexedLevel>comparingInt(level -> level.stars() > 0 ? 1 : 0)
+                            .thenComparingLong(level -> lastSeen.getOrDefault(level.levelId(), 0L)))
+                    .limit(levels.size() - maxSize)
+                    .map(GdIndexedLevel::levelId)
+                    .collect(Collectors.toList());
+            for (final var levelId : evicted) {
+                final var level = levels.remove(levelId);
+                lastSeen.remove(levelId);
+                if (level != null) {
+                    removePostings(level);
+                }
+            }
+        }
+        db.gdIndexedLevelDao().deleteAll(evicted)
+                .subscribe(null, e -> LOGGER.warn("Failed to delete evicted levels from the index", e));
+    }
+
+    private void save(List<GdIndexedLevel> levels) {
+        db.gdIndexedLevelDao().saveAll(levels)
+                .subscribe(null, e -> LOGGER.warn("Failed to save indexed levels", e));
+    }
+
+    /*
+     * Words shorter than the n-gram size can only be matched entirely. Longer words are matched through their
+     * trigrams, which may give false positives that are filtered out afterwards.
+     */
+    private Set<Long> candidatesFor(String token) {
+        if (token.length() < NGRAM_SIZE) {
+            return new HashSet<>(postings.getOrDefault("w:" + token, Set.of()));
+        }
+        Set<Long> result = null;
+        for (final var gram : ngrams(token)) {
+            final var ids = postings.getOrDefault("g:" + gram, Set.of());
+            if (result == null) {
+                result = new HashSet<>(ids);
+            } else {
+                result.retainAll(ids);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> keys(GdIndexedLevel level) {
+        final var keys = new HashSet<String>();
+        for (final var token : tokenize(level.name() + ' ' + level.creatorName().orElse(""))) {
+            keys.add("w:" + token);
+            for (final var gram : ngrams(token)) {
+                keys.add("g:" + gram);
+            }
+        }
+        return keys;
+    }
+
+    private static List<String> tokenize(String text) {
+        final var tokens = new ArrayList<String>();
+        for (final var token : text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> ngrams(String token) {
+        if (token.length() < NGRAM_SIZE) {
+            return Collections.emptyList();
+        }
+        final var ngrams = new ArrayList<String>(token.length() - NGRAM_SIZE + 1);
+        for (var i = 0; i + NGRAM_SIZE <= token.length(); i++) {
+            ngrams.add(token.substring(i, i + NGRAM_SIZE));
+        }
+        return ngrams;
+    }
+
+    private static String searchableText(GdIndexedLevel level) {
+        return String.join(" ", tokenize(level.name() + ' ' + level.creatorName().orElse("")));
+    }
+
+    private static int rank(GdIndexedLevel level, String normalizedQuery) {
+        final var name = String.join(" ", tokenize(level.name()));
+        if (name.equals(normalizedQuery)) {
+            return 0;
+        }
+        return name.startsWith(normalizedQuery) ? 1 : 2;
+    }
+
+    private static GdIndexedLevel toEntity(long levelId, String name, Optional<String> creatorName, int stars) {
+        return ImmutableGdIndexedLevel.builder()
+                .levelId(levelId)
+                .name(name)
+                .creatorName(creatorName)
+                .stars(stars)
+                .build();
+    }
+}
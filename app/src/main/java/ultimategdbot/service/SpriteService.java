@@ -0,0 +1,53 @@
+package ultimategdbot.service;
+
+import botrino.api.config.ConfigContainer;
+import com.github.alex1304.rdi.finder.annotation.RdiFactory;
+import com.github.alex1304.rdi.finder.annotation.RdiService;
+import jdash.graphics.SpriteFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import ultimategdbot.config.UltimateGDBotConfig;
+import ultimategdbot.util.SystemUnit;
+
+import java.time.Duration;
+
+/**
+ * Loads the GD icons sprite factory outside of the startup sequence. Depending on the configuration, sprites are
+ * either preloaded in the background as soon as the bot starts, or only when the first icon set is requested.
+ */
+@RdiService
+public final class SpriteService {
+
+    private static final Logger LOGGER = Loggers.getLogger(SpriteService.class);
+
+    private final Mono<SpriteFactory> spriteFactory = Mono.fromCallable(SpriteService::load)
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorMap(e -> new RuntimeException("An error occurred when loading the GD icons sprite factory", e))
+            // A failed load is not cached, so that the next subscriber tries again
+            .cache(v -> Duration.ofMillis(Long.MAX_VALUE), e -> Duration.ZERO, () -> Duration.ZERO);
+
+    @RdiFactory
+    public SpriteService(ConfigContainer configContainer) {
+        if (configContainer.get(UltimateGDBotConfig.class).gd().preloadSprites()) {
+            spriteFactory.subscribe(null, e -> LOGGER.error("Failed to preload sprites", e));
+        }
+    }
+
+    public Mono<SpriteFactory> spriteFactory() {
+        return spriteFactory;
+    }
+
+    private static SpriteFactory load() throws Exception {
+        final var runtime = Runtime.getRuntime();
+        final var heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        final var start = System.nanoTime();
+        final var spriteFactory = SpriteFactory.create();
+        final var elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        final var heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        LOGGER.info("Loaded GD sprites in {} ms, heap usage grew by approximately {}", elapsedMillis,
+                SystemUnit.format(Math.max(0, heapAfter - heapBefore)));
+        return spriteFactory;
+    }
+}
@@ -1,4 +1,6 @@
 @NonNullApi
+@ImmutablesStyle
 package ultimategdbot.service;
 
-import reactor.util.annotation.NonNullApi;
\ No newline at end of file
+import reactor.util.annotation.NonNullApi;
+import ultimategdbot.util.ImmutablesStyle;
\ No newline at end of file
@@ -6,6 +6,7 @@ import jdash.common.entity.GDSong;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
 import ultimategdbot.Strings;
+import ultimategdbot.database.GdSong;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -95,19 +96,40 @@ public final class GDLevels {
     }
 
     public static String formatSong(Translator tr, GDSong song) {
-        return "__" + song.title() + "__ by " + song.artist();
+        return formatSong(song.title(), song.artist());
+    }
+
+    public static String formatSong(Translator tr, GdSong song) {
+        return formatSong(song.title().orElseThrow(), song.artist().orElseThrow());
+    }
+
+    private static String formatSong(String title, String artist) {
+        return "__" + title + "__ by " + artist;
     }
 
     public static String formatSongExtra(Translator tr, GDSong song, String emojiPlay, String emojiDownload) {
         return song.isCustom()
-                ? tr.translate(Strings.GD, "label_song_id") + ' ' + song.id() + " - " +
-                tr.translate(Strings.GD, "label_song_size") + ' ' + song.size().orElseThrow() + "MB\n" +
-                emojiPlay + " [" + tr.translate(Strings.GD, "play_on_ng") +
-                "](https://www.newgrounds.com/audio/listen/" + song.id() + ")  " + emojiDownload + " [" +
-                tr.translate(Strings.GD, "download_mp3") + "](" + song.downloadUrl().orElseThrow() + ')'
+                ? formatCustomSongExtra(tr, song.id(), String.valueOf(song.size().orElseThrow()),
+                        String.valueOf(song.downloadUrl().orElseThrow()), emojiPlay, emojiDownload)
+                : tr.translate(Strings.GD, "song_native");
+    }
+
+    public static String formatSongExtra(Translator tr, GdSong song, String emojiPlay, String emojiDownload) {
+        return song.isCustom()
+                ? formatCustomSongExtra(tr, song.songId(), song.size().orElseThrow(), song.downloadUrl().orElseThrow(),
+                        emojiPlay, emojiDownload)
                 : tr.translate(Strings.GD, "song_native");
     }
 
+    private static String formatCustomSongExtra(Translator tr, long id, String size, String downloadUrl,
+                                                String emojiPlay, String emojiDownload) {
+        return tr.translate(Strings.GD, "label_song_id") + ' ' + id + " - " +
+                tr.translate(Strings.GD, "label_song_size") + ' ' + size + "MB\n" +
+                emojiPlay + " [" + tr.translate(Strings.GD, "play_on_ng") +
+                "](https://www.newgrounds.com/audio/listen/" + id + ")  " + emojiDownload + " [" +
+                tr.translate(Strings.GD, "download_mp3") + "](" + downloadUrl + ')';
+    }
+
     public static Tuple2<String, String> unknownSongParts(Translator tr) {
         return Tuples.of(":warning: " + tr.translate(Strings.GD, "song_unknown"),
                 tr.translate(Strings.GD, "song_info_unavailable"));
@@ -0,0 +1,293 @@
+package ultimategdbot.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decodes level data as sent by GD servers (URL-safe base64 of a gzip or zlib stream) and computes statistics on the
+ * objects it contains. Data is decoded, decompressed and parsed in a single pass, so the decompressed level string is
+ * never held in memory. Decompression stops once the configured number of bytes has been read, in which case the
+ * analysis only covers the beginning of the level.
+ */
+public final class LevelDataAnalyzer {
+
+    private static final Map<Integer, String> TRIGGERS = triggers();
+    private static final Set<String> HEAVY_TRIGGERS = Set.of("Move", "Rotate", "Follow", "Follow Player Y", "Pulse",
+            "Alpha", "Animate", "Shake");
+    private static final int HEAVY_TRIGGER_WEIGHT = 10;
+    private static final int KEY_OBJECT_ID = 1;
+    private static final int KEY_MAIN_COLOR = 21;
+    private static final int KEY_DETAIL_COLOR = 22;
+
+    private final long maxDecompressedBytes;
+
+    /**
+     * @param maxDecompressedBytes the maximum number of decompressed bytes to read from a level
+     */
+    public LevelDataAnalyzer(long maxDecompressedBytes) {
+        if (maxDecompressedBytes <= 0) {
+            throw new IllegalArgumentException("maxDecompressedBytes must be positive");
+        }
+        this.maxDecompressedBytes = maxDecompressedBytes;
+    }
+
+    public Result analyze(CharSequence encodedData) throws IOException {
+        try (final var input = new BufferedInputStream(decompress(encodedData))) {
+            final var parser = new Parser();
+            long bytesRead = 0;
+            int b;
+            while ((b = input.read()) != -1) {
+                if (++bytesRead > maxDecompressedBytes) {
+                    return parser.result(bytesRead - 1, true);
+                }
+                parser.accept(b);
+            }
+            parser.accept(';');
+            return parser.result(bytesRead, false);
+        }
+    }
+
+    private static InputStream decompress(CharSequence encodedData) throws IOException {
+        final var raw = new CharSequenceInputStream(encodedData);
+        if (startsWith(encodedData, "H4sI")) {
+            return new GZIPInputStream(Base64.getUrlDecoder().wrap(raw));
+        }
+        if (startsWith(encodedData, "eJ")) {
+            return new InflaterInputStream(Base64.getUrlDecoder().wrap(raw));
+        }
+        // Very old levels are stored without any encoding
+        return raw;
+    }
+
+    private static boolean startsWith(CharSequence s, String prefix) {
+        return s.length() >= prefix.length() && s.subSequence(0, prefix.length()).toString().equals(prefix);
+    }
+
+    /*
+     * The level string is a list of objects separated by ';', each object being a list of alternating keys and values
+     * separated by ','. The first element holds the level settings and isn't an object. Only the few values that are
+     * needed are parsed, everything else is skipped byte by byte.
+     */
+    private static final class Parser {
+        private final Map<Integer, Integer> objectsById = new HashMap<>();
+        private final Map<Integer, Integer> colorChannelUsage = new HashMap<>();
+        private boolean inHeader = true;
+        private boolean isKey = true;
+        private boolean validNumber = true;
+        private int number;
+        private int key;
+        private int objectId;
+        private int mainColor;
+        private int detailColor;
+        private long objectCount;
+
+        void accept(int b) {
+            if (inHeader) {
+                inHeader = b != ';';
+                return;
+            }
+            if (b == ',' || b == ';') {
+                endToken();
+                if (b == ';') {
+                    endObject();
+                }
+                return;
+            }
+            if (b >= '0' && b <= '9' && number < Integer.MAX_VALUE / 10) {
+                number = number * 10 + (b - '0');
+            } else {
+                validNumber = false;
+            }
+        }
+
+        private void endToken() {
+            final var value = validNumber ? number : -1;
+            if (isKey) {
+                key = value;
+            } else if (key == KEY_OBJECT_ID) {
+                objectId = value;
+            } else if (key == KEY_MAIN_COLOR) {
+                mainColor = value;
+            } else if (key == KEY_DETAIL_COLOR) {
+                detailColor = value;
+            }
+            isKey = !isKey;
+            number = 0;
+            validNumber = true;
+        }
+
+        private void endObject() {
+            if (objectId > 0) {
+                objectCount++;
+                objectsById.merge(objectId, 1, Integer::sum);
+                if (mainColor > 0) {
+                    colorChannelUsage.merge(mainColor, 1, Integer::sum);
+                }
+                if (detailColor > 0) {
+                    colorChannelUsage.merge(detailColor, 1, Integer::sum);
+                }
+            }
+            isKey = true;
+            objectId = 0;
+            mainColor = 0;
+            detailColor = 0;
+        }
+
+        Result result(long bytesRead, boolean truncated) {
+            final var triggerCounts = new TreeMap<String, Integer>();
+            objectsById.forEach((id, count) -> {
+                final var trigger = TRIGGERS.get(id);
+                if (trigger != null) {
+                    triggerCounts.merge(trigger, count, Integer::sum);
+                }
+            });
+            return new Result(objectCount, triggerCounts, colorChannelUsage.size(), bytesRead, truncated);
+        }
+    }
+
+    public static final class Result {
+        private final long objectCount;
+        private final Map<String, Integer> triggerCounts;
+        private final int colorChannelCount;
+        private final long decompressedSize;
+        private final boolean truncated;
+
+        private Result(long objectCount, Map<String, Integer> triggerCounts, int colorChannelCount,
+                       long decompressedSize, boolean truncated) {
+            this.objectCount = objectCount;
+            this.triggerCounts = Collections.unmodifiableMap(triggerCounts);
+            this.colorChannelCount = colorChannelCount;
+            this.decompressedSize = decompressedSize;
+            this.truncated = truncated;
+        }
+
+        public long objectCount() {
+            return objectCount;
+        }
+
+        /**
+         * @return the number of triggers of each type, by trigger name in alphabetical order
+         */
+        public Map<String, Integer> triggerCounts() {
+            return triggerCounts;
+        }
+
+        public int triggerCount() {
+            return triggerCounts.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        public int colorChannelCount() {
+            return colorChannelCount;
+        }
+
+        public long decompressedSize() {
+            return decompressedSize;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * Gives a rough estimate of how much the level is likely to lag. Triggers that animate objects every frame
+         * weigh more than plain objects.
+         *
+         * @return the lag estimate
+         */
+        public LagEstimate lagEstimate() {
+            final var heavyTriggers = triggerCounts.entrySet().stream()
+                    .filter(entry -> HEAVY_TRIGGERS.contains(entry.getKey()))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            final var score = objectCount + HEAVY_TRIGGER_WEIGHT * heavyTriggers;
+            if (score < 40_000) {
+                return LagEstimate.LOW;
+            }
+            if (score < 100_000) {
+                return LagEstimate.MEDIUM;
+            }
+            return score < 200_000 ? LagEstimate.HIGH : LagEstimate.EXTREME;
+        }
+    }
+
+    public enum LagEstimate {
+        LOW, MEDIUM, HIGH, EXTREME
+    }
+
+    private static final class CharSequenceInputStream extends InputStream {
+        private final CharSequence chars;
+        private int position;
+
+        private CharSequenceInputStream(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read() {
+            return position < chars.length() ? chars.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= chars.length()) {
+                return -1;
+            }
+            final var n = Math.min(len, chars.length() - position);
+            for (var i = 0; i < n; i++) {
+                b[off + i] = (byte) chars.charAt(position++);
+            }
+            return n;
+        }
+    }
+
+    private static Map<Integer, String> triggers() {
+        final var map = new HashMap<Integer, String>();
+        for (final var id : new int[] { 29, 30, 104, 105, 221, 717, 718, 743, 744, 899, 900, 915 }) {
+            map.put(id, "Color");
+        }
+        map.put(901, "Move");
+        map.put(1006, "Pulse");
+        map.put(1007, "Alpha");
+        map.put(1049, "Toggle");
+        map.put(1268, "Spawn");
+        map.put(1346, "Rotate");
+        map.put(1347, "Follow");
+        map.put(1520, "Shake");
+        map.put(1585, "Animate");
+        map.put(1595, "Touch");
+        map.put(1611, "Count");
+        map.put(1616, "Stop");
+        map.put(1811, "Instant Count");
+        map.put(1812, "On Death");
+        map.put(1814, "Follow Player Y");
+        map.put(1815, "Collision");
+        map.put(1817, "Pickup");
+        map.put(1818, "BG Effect On");
+        map.put(1819, "BG Effect Off");
+        map.put(1912, "Random");
+        map.put(1913, "Camera Zoom");
+        map.put(1914, "Static Camera");
+        map.put(1916, "Camera Offset");
+        map.put(1917, "Reverse");
+        map.put(1932, "Player Control");
+        map.put(1934, "Song");
+        map.put(2015, "Camera Rotate");
+        map.put(2062, "Camera Edge");
+        map.put(2066, "Gravity");
+        map.put(2067, "Scale");
+        map.put(2068, "Advanced Random");
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,164 @@
+package ultimategdbot.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodes images as PNG with a configurable deflate level. Images using at most 256 distinct colors are written with
+ * an indexed palette, which makes them noticeably smaller. Encoded bytes end up in pooled buffers that are reused
+ * across encodings once released.
+ */
+public final class PngEncoder {
+
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final int INITIAL_BUFFER_SIZE = 100_000;
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    private final float compressionQuality;
+    private final Queue<Buffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    /**
+     * @param deflateLevel the deflate level to use, from 0 (no compression, fastest) to 9 (best compression, slowest)
+     */
+    public PngEncoder(int deflateLevel) {
+        if (deflateLevel < 0 || deflateLevel > 9) {
+            throw new IllegalArgumentException("deflateLevel must be between 0 and 9");
+        }
+        // The JDK PNG writer maps a quality of 1 to no compression and a quality of 0 to the best compression
+        this.compressionQuality = 1 - deflateLevel / 9f;
+    }
+
+    public EncodedImage encode(BufferedImage image) throws IOException {
+        var buffer = pool.poll();
+        if (buffer == null) {
+            buffer = new Buffer();
+        } else {
+            pooledCount.decrementAndGet();
+            buffer.reset();
+        }
+        final var writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (final var output = new MemoryCacheImageOutputStream(buffer)) {
+            writer.setOutput(output);
+            final var param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(compressionQuality);
+            }
+            writer.write(null, new IIOImage(toIndexedIfPossible(image), null, null), param);
+        } catch (IOException | RuntimeException e) {
+            recycle(buffer);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        return new EncodedImage(buffer);
+    }
+
+    private void recycle(Buffer buffer) {
+        if (pooledCount.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        pool.offer(buffer);
+    }
+
+    /*
+     * Pixels are read one row at a time, so that images with too many colors are detected as soon as the 257th color
+     * is found, without reading the rest of the image.
+     */
+    private static BufferedImage toIndexedIfPossible(BufferedImage image) {
+        final var width = image.getWidth();
+        final var height = image.getHeight();
+        final var row = new int[width];
+        final var paletteIndices = new HashMap<Integer, Integer>(MAX_PALETTE_SIZE * 2);
+        final var palette = new int[MAX_PALETTE_SIZE];
+        for (var y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (final var pixel : row) {
+                if (paletteIndices.containsKey(pixel)) {
+                    continue;
+                }
+                if (paletteIndices.size() == MAX_PALETTE_SIZE) {
+                    return image;
+                }
+                palette[paletteIndices.size()] = pixel;
+                paletteIndices.put(pixel, paletteIndices.size());
+            }
+        }
+        final var paletteSize = paletteIndices.size();
+        final var r = new byte[paletteSize];
+        final var g = new byte[paletteSize];
+        final var b = new byte[paletteSize];
+        final var a = new byte[paletteSize];
+        for (var i = 0; i < paletteSize; i++) {
+            a[i] = (byte) (palette[i] >>> 24);
+            r[i] = (byte) (palette[i] >>> 16);
+            g[i] = (byte) (palette[i] >>> 8);
+            b[i] = (byte) palette[i];
+        }
+        final var indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
+                new IndexColorModel(8, paletteSize, r, g, b, a));
+        final var indices = new int[width];
+        for (var y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (var x = 0; x < width; x++) {
+                indices[x] = paletteIndices.get(row[x]);
+            }
+            indexed.getRaster().setSamples(0, y, width, 1, 0, indices);
+        }
+        return indexed;
+    }
+
+    /**
+     * The result of an encoding. {@link #release()} should be called once the bytes are no longer read, so that the
+     * underlying buffer can be reused for subsequent encodings.
+     */
+    public final class EncodedImage {
+
+        private final Buffer buffer;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private EncodedImage(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public InputStream stream() {
+            return buffer.toInputStream();
+        }
+
+        public int size() {
+            return buffer.size();
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                recycle(buffer);
+            }
+        }
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        private InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package ultimategdbot.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only key-value store persisted on disk as a sequence of segment files. Each entry has its own expiration
+ * time. Keys and the location of their latest value are kept in memory, values are read from disk on demand.
+ *
+ * <p>Writes always go to the newest segment, which is replaced by a new one once it exceeds a fraction of the byte
+ * budget. When the total size exceeds the budget, the oldest segments are deleted. {@link #compact()} rewrites the
+ * segments that mostly hold overwritten or expired entries.</p>
+ *
+ * <p>Each entry is stored with a CRC32 checksum of its header, key and value. On startup, existing segments are
+ * scanned to rebuild the index. A segment ending with an incomplete or corrupted entry, typically after a crash, is
+ * truncated right before it. An entry found to be corrupted when read is removed and treated as missing.</p>
+ */
+public final class SegmentStore implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    // Key length, expiration time, write time, value length and checksum
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int CHECKSUM_OFFSET = HEADER_SIZE - Integer.BYTES;
+    private static final int SEGMENTS_PER_BUDGET = 8;
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxSegmentSize;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment active;
+
+    private SegmentStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxSegmentSize = Math.max(MIN_SEGMENT_SIZE, maxBytes / SEGMENTS_PER_BUDGET);
+    }
+
+    /**
+     * Opens the store located in the given directory, creating it if it doesn't exist.
+     *
+     * @param directory the directory holding the segment files
+     * @param maxBytes  the maximum total size of the segment files
+     * @return the opened store
+     * @throws IOException if an I/O error occurs while reading existing segments
+     */
+    public static SegmentStore open(Path directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        Files.createDirectories(directory);
+        final var store = new SegmentStore(directory, maxBytes);
+        final var ids = new ArrayList<Long>();
+        try (final var files = Files.list(directory)) {
+            for (final var file : files.collect(Collectors.toList())) {
+                final var name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+        }
+        ids.sort(null);
+        for (final var id : ids) {
+            store.load(id);
+        }
+        store.active = store.createSegment(ids.isEmpty() ? 0 : ids.get(ids.size() - 1) + 1);
+        return store;
+    }
+
+    /**
+     * Gets the value associated with the given key, if it hasn't expired and was written before the given time.
+     *
+     * @param key           the key
+     * @param writtenBefore the time in milliseconds since the epoch before which the value must have been written
+     * @return the value along with its expiration time, or empty if there is none or if it is corrupted
+     */
+    public Optional<Entry> get(String key, long writtenBefore) {
+        final var location = index.get(key);
+        if (location == null || location.writtenAt >= writtenBefore) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            if (location.isExpired(System.currentTimeMillis())) {
+                unindex(key, location);
+                return Optional.empty();
+            }
+            final var segment = segments.get(location.segmentId);
+            if (segment == null) {
+                return Optional.empty();
+            }
+            final var record = ByteBuffer.allocate(location.recordLength);
+            readFully(segment.channel, record, location.recordOffset);
+            if (!hasValidChecksum(record.array())) {
+                unindex(key, location);
+                return Optional.empty();
+            }
+            return Optional.of(new Entry(Arrays.copyOfRange(record.array(),
+                    location.recordLength - location.valueLength, location.recordLength), location.expiresAt));
+        } catch (IOException e) {
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(String key, byte[] value, Duration ttl) throws IOException {
+        lock.writeLock().lock();
+        try {
+            final var now = System.currentTimeMillis();
+            append(key, value, now + ttl.toMillis(), now);
+            enforceBudget();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes expired entries from the index, then rewrites the entries that are still valid from segments where less
+     * than half of the space is in use, and deletes those segments. Rewritten entries go to the newest segments like
+     * any other write, and the byte budget is enforced once done.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            final var now = System.currentTimeMillis();
+            for (final var entry : index.entrySet()) {
+                if (entry.getValue().isExpired(now)) {
+                    unindex(entry.getKey(), entry.getValue());
+                }
+            }
+            // Only the segments that existed before compaction started, those created while it runs are not compacted
+            for (final var segment : new ArrayList<>(segments.headMap(active.id).values())) {
+                if (segment.liveBytes.get() * 2 >= segment.size.get()) {
+                    continue;
+                }
+                for (final var entry : index.entrySet()) {
+                    final var location = entry.getValue();
+                    if (location.segmentId != segment.id) {
+                        continue;
+                    }
+                    final var record = ByteBuffer.allocate(location.recordLength);
+                    readFully(segment.channel, record, location.recordOffset);
+                    if (!hasValidChecksum(record.array())) {
+                        unindex(entry.getKey(), location);
+                        continue;
+                    }
+                    append(entry.getKey(), Arrays.copyOfRange(record.array(),
+                            location.recordLength - location.valueLength, location.recordLength),
+                            location.expiresAt, location.writtenAt);
+                }
+                deleteSegment(segment);
+            }
+            enforceBudget();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int entryCount() {
+        return index.size();
+    }
+
+    public long totalSize() {
+        lock.readLock().lock();
+        try {
+            return segments.values().stream().mapToLong(segment -> segment.size.get()).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (final var segment : segments.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(String key, byte[] value, long expiresAt, long writtenAt) throws IOException {
+        final var keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final var record = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + value.length)
+                .putInt(keyBytes.length)
+                .putLong(expiresAt)
+                .putLong(writtenAt)
+                .putInt(value.length)
+                .putInt(0)
+                .put(keyBytes)
+                .put(value);
+        record.putInt(CHECKSUM_OFFSET, checksum(record.array())).flip();
+        final var offset = active.size.get();
+        while (record.hasRemaining()) {
+            active.channel.write(record, offset + record.position());
+        }
+        active.size.addAndGet(record.limit());
+        index(key, new Location(active.id, offset, value.length, record.limit(), expiresAt, writtenAt));
+        if (active.size.get() >= maxSegmentSize) {
+            active = createSegment(active.id + 1);
+        }
+    }
+
+    private void enforceBudget() throws IOException {
+        while (totalSize() > maxBytes && segments.size() > 1) {
+            deleteSegment(segments.firstEntry().getValue());
+        }
+    }
+
+    private void index(String key, Location location) {
+        final var previous = index.put(key, location);
+        if (previous != null) {
+            subtractLiveBytes(previous);
+        }
+        segments.get(location.segmentId).liveBytes.addAndGet(location.recordLength);
+    }
+
+    private void unindex(String key, Location location) {
+        if (index.remove(key, location)) {
+            subtractLiveBytes(location);
+        }
+    }
+
+    private void subtractLiveBytes(Location location) {
+        final var segment = segments.get(location.segmentId);
+        if (segment != null) {
+            segment.liveBytes.addAndGet(-location.recordLength);
+        }
+    }
+
+    private void load(long id) throws IOException {
+        final var segment = openSegment(id);
+        segments.put(id, segment);
+        final var fileSize = segment.channel.size();
+        final var header = ByteBuffer.allocate(HEADER_SIZE);
+        final var now = System.currentTimeMillis();
+        var offset = 0L;
+        while (offset + HEADER_SIZE <= fileSize) {
+            readFully(segment.channel, header.clear(), offset);
+            header.flip();
+            final var keyLength = header.getInt();
+            final var expiresAt = header.getLong();
+            final var writtenAt = header.getLong();
+            final var valueLength = header.getInt();
+            final var recordLength = HEADER_SIZE + (long) keyLength + valueLength;
+            if (keyLength <= 0 || valueLength < 0 || offset + recordLength > fileSize
+                    || recordLength > Integer.MAX_VALUE) {
+                break;
+            }
+            final var record = ByteBuffer.allocate((int) recordLength);
+            readFully(segment.channel, record, offset);
+            if (!hasValidChecksum(record.array())) {
+                break;
+            }
+            if (expiresAt > now) {
+                index(new String(record.array(), HEADER_SIZE, keyLength, StandardCharsets.UTF_8),
+                        new Location(id, offset, valueLength, (int) recordLength, expiresAt, writtenAt));
+            }
+            offset += recordLength;
+        }
+        if (offset < fileSize) {
+            segment.channel.truncate(offset);
+        }
+        segment.size.set(offset);
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        final var segment = openSegment(id);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        final var path = directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        return new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segments.remove(segment.id);
+        index.values().removeIf(location -> location.segmentId == segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+
+    /*
+     * The checksum covers the whole record, with the checksum field itself set to zero.
+     */
+    private static int checksum(byte[] record) {
+        final var crc = new CRC32();
+        crc.update(record, 0, CHECKSUM_OFFSET);
+        crc.update(new byte[Integer.BYTES]);
+        crc.update(record, HEADER_SIZE, record.length - HEADER_SIZE);
+        return (int) crc.getValue();
+    }
+
+    private static boolean hasValidChecksum(byte[] record) {
+        return ByteBuffer.wrap(record).getInt(CHECKSUM_OFFSET) == checksum(record);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    public static final class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        public byte[] value() {
+            return value;
+        }
+
+        /**
+         * Gets the time in milliseconds since the epoch at which this entry expires.
+         *
+         * @return the expiration time
+         */
+        public long expiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicLong size = new AtomicLong();
+        private final AtomicLong liveBytes = new AtomicLong();
+
+        private Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    private static final class Location {
+        private final long segmentId;
+        private final long recordOffset;
+        private final int valueLength;
+        private final int recordLength;
+        private final long expiresAt;
+        private final long writtenAt;
+
+        private Location(long segmentId, long recordOffset, int valueLength, int recordLength, long expiresAt,
+                         long writtenAt) {
+            this.segmentId = segmentId;
+            this.recordOffset = recordOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+            this.expiresAt = expiresAt;
+            this.writtenAt = writtenAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}